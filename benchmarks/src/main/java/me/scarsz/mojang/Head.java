@@ -0,0 +1,48 @@
+/*
+ * This file is part of AmpMenus.
+ *
+ * Copyright (c) 2014-2021 <https://github.com/Scarsz/AmpMenus/>
+ *
+ * AmpMenus is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * AmpMenus is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with AmpMenus.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.scarsz.mojang;
+
+import org.bukkit.Material;
+import org.bukkit.OfflinePlayer;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.UUID;
+
+/**
+ * Stands in for the Head class of the mojang library in benchmarks, creating plain skulls without contacting Mojang.
+ */
+public class Head {
+
+    public static ItemStack getPlayerSkullItem() {
+        return new ItemStack(Material.PLAYER_HEAD);
+    }
+
+    public static ItemStack create(UUID uuid) {
+        return getPlayerSkullItem();
+    }
+
+    public static ItemStack create(OfflinePlayer player) {
+        return create(player.getUniqueId());
+    }
+
+    public static ItemStack createFromTexture(String textureId) {
+        return getPlayerSkullItem();
+    }
+
+}
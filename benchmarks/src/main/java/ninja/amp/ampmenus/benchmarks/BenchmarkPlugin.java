@@ -0,0 +1,40 @@
+/*
+ * This file is part of AmpMenus.
+ *
+ * Copyright (c) 2014-2021 <https://github.com/Scarsz/AmpMenus/>
+ *
+ * AmpMenus is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * AmpMenus is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with AmpMenus.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ninja.amp.ampmenus.benchmarks;
+
+import org.bukkit.Server;
+import org.bukkit.plugin.PluginDescriptionFile;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.plugin.java.JavaPluginLoader;
+
+import java.io.File;
+
+/**
+ * An enabled plugin created outside of a plugin class loader, owning the menus of the benchmarks.
+ */
+public class BenchmarkPlugin extends JavaPlugin {
+
+    @SuppressWarnings("deprecation")
+    BenchmarkPlugin(Server server) {
+        super(new JavaPluginLoader(server), new PluginDescriptionFile("AmpMenusBenchmarks", "1.0", BenchmarkPlugin.class.getName()),
+                new File(System.getProperty("java.io.tmpdir"), "AmpMenusBenchmarks"), new File(System.getProperty("java.io.tmpdir"), "AmpMenusBenchmarks.jar"));
+        setEnabled(true);
+    }
+
+}
@@ -0,0 +1,84 @@
+/*
+ * This file is part of AmpMenus.
+ *
+ * Copyright (c) 2014-2021 <https://github.com/Scarsz/AmpMenus/>
+ *
+ * AmpMenus is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * AmpMenus is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with AmpMenus.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ninja.amp.ampmenus.benchmarks;
+
+import ninja.amp.ampmenus.MenuListener;
+import ninja.amp.ampmenus.items.StaticMenuItem;
+import ninja.amp.ampmenus.menus.ItemMenu;
+import org.bukkit.Material;
+import org.bukkit.entity.Player;
+import org.bukkit.event.inventory.ClickType;
+import org.bukkit.event.inventory.InventoryAction;
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.event.inventory.InventoryType;
+import org.bukkit.inventory.ItemStack;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures dispatching an InventoryClickEvent through the {@link ninja.amp.ampmenus.MenuListener} to the clicked
+ * {@link ninja.amp.ampmenus.items.MenuItem}, for an item that does nothing and for an item that updates the menu.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ClickBenchmark {
+
+    private StubServer server;
+    private InventoryClickEvent staticClick;
+    private InventoryClickEvent updateClick;
+
+    @Setup
+    public void setup() {
+        server = StubServer.install();
+        ItemMenu menu = new ItemMenu("Clicks", ItemMenu.Size.SIX_LINE, server.getPlugin());
+        for (int i = 0; i < menu.getSize().getSize(); i++) {
+            menu.setItem(i, i == 0 ? new CounterMenuItem(i) : new StaticMenuItem("Item " + i, new ItemStack(Material.STONE)));
+        }
+        Player player = server.createPlayer("Clicker");
+        menu.open(player);
+        staticClick = new InventoryClickEvent(player.getOpenInventory(), InventoryType.SlotType.CONTAINER, 1, ClickType.LEFT, InventoryAction.PICKUP_ALL);
+        updateClick = new InventoryClickEvent(player.getOpenInventory(), InventoryType.SlotType.CONTAINER, 0, ClickType.LEFT, InventoryAction.PICKUP_ALL);
+    }
+
+    @Benchmark
+    public void clickStatic() {
+        MenuListener.getInstance().onInventoryClick(staticClick);
+    }
+
+    @Benchmark
+    public void clickUpdate() {
+        MenuListener.getInstance().onInventoryClick(updateClick);
+        server.tick();
+    }
+
+}
@@ -0,0 +1,51 @@
+/*
+ * This file is part of AmpMenus.
+ *
+ * Copyright (c) 2014-2021 <https://github.com/Scarsz/AmpMenus/>
+ *
+ * AmpMenus is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * AmpMenus is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with AmpMenus.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ninja.amp.ampmenus.benchmarks;
+
+import ninja.amp.ampmenus.events.ItemClickEvent;
+import ninja.amp.ampmenus.items.MenuItem;
+import org.bukkit.Material;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+
+/**
+ * A {@link ninja.amp.ampmenus.items.MenuItem} whose icon changes every time it is rendered, so that every render writes
+ * its slot. Clicking it updates the menu.
+ */
+public class CounterMenuItem extends MenuItem {
+
+    private int counter;
+
+    public CounterMenuItem(int index) {
+        super("Counter " + index, new ItemStack(Material.PAPER));
+    }
+
+    @Override
+    public ItemStack getFinalIcon(Player player) {
+        ItemStack icon = super.getFinalIcon(player);
+        icon.setAmount(++counter % 64 + 1);
+        return icon;
+    }
+
+    @Override
+    public void onItemClick(ItemClickEvent event) {
+        event.setWillUpdate(true);
+    }
+
+}
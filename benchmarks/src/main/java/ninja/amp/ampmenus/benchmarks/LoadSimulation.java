@@ -0,0 +1,230 @@
+/*
+ * This file is part of AmpMenus.
+ *
+ * Copyright (c) 2014-2021 <https://github.com/Scarsz/AmpMenus/>
+ *
+ * AmpMenus is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * AmpMenus is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with AmpMenus.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ninja.amp.ampmenus.benchmarks;
+
+import ninja.amp.ampmenus.MenuListener;
+import ninja.amp.ampmenus.MenuMetrics;
+import ninja.amp.ampmenus.items.MenuItem;
+import ninja.amp.ampmenus.items.StaticMenuItem;
+import ninja.amp.ampmenus.items.SubMenuItem;
+import ninja.amp.ampmenus.items.ToggleableMenuItem;
+import ninja.amp.ampmenus.menus.ItemMenu;
+import ninja.amp.ampmenus.menus.MenuSession;
+import ninja.amp.ampmenus.menus.PaginatedItemMenu;
+import org.bukkit.Material;
+import org.bukkit.entity.Player;
+import org.bukkit.event.inventory.ClickType;
+import org.bukkit.event.inventory.InventoryAction;
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.event.inventory.InventoryType;
+import org.bukkit.inventory.ItemStack;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Simulates many players using menus at once on a {@link ninja.amp.ampmenus.benchmarks.StubServer}. Every player runs
+ * the same script: open the main menu, toggle a setting, open the paginated sub menu, page forward and back, go back to
+ * the main menu and close it. Events go through the {@link ninja.amp.ampmenus.MenuListener} exactly as on a server.
+ *
+ * <p>Usage: {@code java -cp target/benchmarks.jar ninja.amp.ampmenus.benchmarks.LoadSimulation [players] [ticks]
+ * [ticks between actions] [pages]}</p>
+ */
+public class LoadSimulation {
+
+    private static final int TOGGLE_SLOT = 11;
+    private static final int SUB_MENU_SLOT = 15;
+    private static final int PREVIOUS_PAGE_SLOT = 45;
+    private static final int BACK_SLOT = 49;
+    private static final int NEXT_PAGE_SLOT = 53;
+
+    private final StubServer server;
+    private final ItemMenu mainMenu;
+    private final PaginatedItemMenu listMenu;
+    private final Set<UUID> toggled = new HashSet<>();
+    private final List<SimulatedPlayer> players = new ArrayList<>();
+    private final int interval;
+    private final int pages;
+
+    private long[] clickNanos = new long[1024];
+    private int clicks;
+    private long sessions;
+
+    public LoadSimulation(int playerCount, int interval, int pages) {
+        this.server = StubServer.install();
+        this.interval = interval;
+        this.pages = pages;
+
+        mainMenu = new ItemMenu("Main Menu", ItemMenu.Size.SIX_LINE, server.getPlugin());
+        List<MenuItem> entries = new ArrayList<>();
+        for (int i = 0; i < PaginatedItemMenu.ITEMS_PER_PAGE * (pages + 1); i++) {
+            entries.add(new StaticMenuItem("Entry " + i, new ItemStack(Material.PAPER), "Lore of entry " + i));
+        }
+        listMenu = new PaginatedItemMenu("Entries", server.getPlugin(), mainMenu) {
+            @Override
+            public List<MenuItem> getItems(Player player) {
+                return entries;
+            }
+        };
+        mainMenu.setItem(TOGGLE_SLOT, new ToggleableMenuItem("Setting") {
+            @Override
+            public boolean getValue(Player player) {
+                return toggled.contains(player.getUniqueId());
+            }
+
+            @Override
+            public void toggleValue(Player player) {
+                if (!toggled.remove(player.getUniqueId())) {
+                    toggled.add(player.getUniqueId());
+                }
+            }
+        });
+        mainMenu.setItem(SUB_MENU_SLOT, new SubMenuItem(server.getPlugin(), "Entries", new ItemStack(Material.BOOK), listMenu));
+        mainMenu.fillEmptySlots();
+
+        Random random = new Random(0);
+        for (int i = 0; i < playerCount; i++) {
+            players.add(new SimulatedPlayer(server.createPlayer("Player" + i), random.nextInt(interval)));
+        }
+    }
+
+    /**
+     * Runs the simulation and prints a report.
+     *
+     * @param ticks The amount of ticks to simulate.
+     */
+    public void run(int ticks) {
+        MenuMetrics.getInstance().setEnabled(true);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        long[] tickNanos = new long[ticks];
+
+        long allocatedBefore = threads.getThreadAllocatedBytes(thread);
+        for (int tick = 0; tick < ticks; tick++) {
+            long start = System.nanoTime();
+            for (SimulatedPlayer player : players) {
+                if ((tick + player.phase) % interval == 0) {
+                    player.act();
+                }
+            }
+            server.tick();
+            tickNanos[tick] = System.nanoTime() - start;
+        }
+        long allocated = threads.getThreadAllocatedBytes(thread) - allocatedBefore;
+
+        Arrays.sort(tickNanos);
+        long[] clickLatencies = Arrays.copyOf(clickNanos, clicks);
+        Arrays.sort(clickLatencies);
+        double meanTick = Arrays.stream(tickNanos).average().orElse(0) / 1_000_000D;
+
+        System.out.printf("Players: %d, ticks: %d, completed sessions: %d, clicks: %d%n", players.size(), ticks, sessions, clicks);
+        System.out.printf("Tick time: mean %.3f ms, p99 %.3f ms, max %.3f ms (%.1f%% of the 50 ms budget on average)%n",
+                meanTick, percentile(tickNanos, 99) / 1_000_000D, tickNanos[ticks - 1] / 1_000_000D, meanTick * 2);
+        System.out.printf("Click latency: p50 %.1f us, p99 %.1f us, max %.1f us%n",
+                percentile(clickLatencies, 50) / 1000D, percentile(clickLatencies, 99) / 1000D, clicks > 0 ? clickLatencies[clicks - 1] / 1000D : 0);
+        System.out.printf("Allocated: %.1f MB in total, %.1f KB per completed session%n",
+                allocated / 1_048_576D, sessions > 0 ? allocated / 1024D / sessions : 0);
+        System.out.println("Menu metrics:");
+        for (MenuMetrics.Operation operation : MenuMetrics.Operation.values()) {
+            for (Map.Entry<Class<?>, MenuMetrics.Timer> entry : MenuMetrics.getInstance().getTimers(operation).entrySet()) {
+                MenuMetrics.Timer timer = entry.getValue();
+                System.out.printf("  %-6s %-40s count %8d, mean %8.1f us, p99 <= %8.1f us, slots written %d%n", operation, entry.getKey().getName(),
+                        timer.getCount(), timer.getMeanNanos() / 1000D, timer.getPercentile(99) / 1000D, timer.getSlotsWritten());
+            }
+        }
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(sorted.length * percentile / 100) - 1)];
+    }
+
+    private void click(Player player, int slot) {
+        InventoryClickEvent event = new InventoryClickEvent(player.getOpenInventory(), InventoryType.SlotType.CONTAINER, slot, ClickType.LEFT, InventoryAction.PICKUP_ALL);
+        long start = System.nanoTime();
+        server.callEvent(event);
+        long nanos = System.nanoTime() - start;
+        if (clicks == clickNanos.length) {
+            clickNanos = Arrays.copyOf(clickNanos, clicks * 2);
+        }
+        clickNanos[clicks++] = nanos;
+    }
+
+    /**
+     * A player following the script, one step per action.
+     */
+    private class SimulatedPlayer {
+
+        private final Player player;
+        private final int phase;
+        private int step;
+
+        private SimulatedPlayer(Player player, int phase) {
+            this.player = player;
+            this.phase = phase;
+        }
+
+        private void act() {
+            MenuSession session = MenuListener.getInstance().getSession(player);
+            ItemMenu open = session != null ? session.getMenu() : null;
+            if (step == 0) {
+                mainMenu.open(player);
+                step++;
+            } else if (step == 1 && open == mainMenu) {
+                click(player, TOGGLE_SLOT);
+                step++;
+            } else if (step == 2 && open == mainMenu) {
+                click(player, SUB_MENU_SLOT);
+                step++;
+            } else if (step >= 3 && step < 3 + pages && open == listMenu) {
+                click(player, NEXT_PAGE_SLOT);
+                step++;
+            } else if (step >= 3 + pages && step < 3 + 2 * pages && open == listMenu) {
+                click(player, PREVIOUS_PAGE_SLOT);
+                step++;
+            } else if (step == 3 + 2 * pages && open == listMenu) {
+                click(player, BACK_SLOT);
+                step++;
+            } else if (step == 4 + 2 * pages && open == mainMenu) {
+                player.closeInventory();
+                sessions++;
+                step = 0;
+            }
+        }
+
+    }
+
+    public static void main(String[] args) {
+        int playerCount = args.length > 0 ? Integer.parseInt(args[0]) : 800;
+        int ticks = args.length > 1 ? Integer.parseInt(args[1]) : 1200;
+        int interval = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        int pages = args.length > 3 ? Integer.parseInt(args[3]) : 3;
+        new LoadSimulation(playerCount, interval, pages).run(ticks);
+    }
+
+}
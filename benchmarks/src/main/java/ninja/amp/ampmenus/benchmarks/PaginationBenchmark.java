@@ -0,0 +1,182 @@
+/*
+ * This file is part of AmpMenus.
+ *
+ * Copyright (c) 2014-2021 <https://github.com/Scarsz/AmpMenus/>
+ *
+ * AmpMenus is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * AmpMenus is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with AmpMenus.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ninja.amp.ampmenus.benchmarks;
+
+import ninja.amp.ampmenus.items.MenuItem;
+import ninja.amp.ampmenus.items.StaticMenuItem;
+import ninja.amp.ampmenus.menus.IndexedPageSource;
+import ninja.amp.ampmenus.menus.PageQuery;
+import ninja.amp.ampmenus.menus.PageSource;
+import ninja.amp.ampmenus.menus.PaginatedItemMenu;
+import org.bukkit.Material;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures rendering a {@link ninja.amp.ampmenus.menus.PaginatedItemMenu} with lists of different sizes, both from a
+ * list of prepared {@link ninja.amp.ampmenus.items.MenuItem}s and from a
+ * {@link ninja.amp.ampmenus.menus.PageSource} creating them for the shown page only. Searching is measured both on an
+ * {@link ninja.amp.ampmenus.menus.IndexedPageSource} directly and through a menu creating a new source every render.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PaginationBenchmark {
+
+    @Param({"10", "100", "1000", "10000", "100000"})
+    public int entries;
+
+    private StubServer server;
+    private PaginatedItemMenu listMenu;
+    private PaginatedItemMenu sourceMenu;
+    private PaginatedItemMenu searchMenu;
+    private IndexedPageSource<MenuItem> index;
+    private Player listViewer;
+    private Player sourceViewer;
+    private Player searchViewer;
+    private final PageQuery<MenuItem>[] queries = createQueries();
+    private int nextQuery;
+    private int lastPage;
+    private boolean onLastPage;
+
+    @Setup
+    public void setup() {
+        server = StubServer.install();
+        List<MenuItem> items = new ArrayList<>(entries);
+        List<Integer> numbers = new ArrayList<>(entries);
+        for (int i = 0; i < entries; i++) {
+            items.add(new StaticMenuItem("Entry " + i, new ItemStack(Material.PAPER), "Lore of entry " + i));
+            numbers.add(i);
+        }
+        listMenu = new PaginatedItemMenu("List", server.getPlugin()) {
+            @Override
+            public List<MenuItem> getItems(Player player) {
+                return items;
+            }
+        };
+        sourceMenu = new PaginatedItemMenu("Source", server.getPlugin()) {
+            @Override
+            public List<MenuItem> getItems(Player player) {
+                PageSource<MenuItem> source = getSource(player);
+                return source.slice(0, source.count());
+            }
+
+            @Override
+            public PageSource<MenuItem> getSource(Player player) {
+                return PageSource.of(numbers).map(i -> new StaticMenuItem("Entry " + i, new ItemStack(Material.PAPER), "Lore of entry " + i));
+            }
+        };
+        searchMenu = new PaginatedItemMenu("Search", server.getPlugin()) {
+            @Override
+            public List<MenuItem> getItems(Player player) {
+                return items;
+            }
+
+            @Override
+            public PageSource<MenuItem> getSource(Player player) {
+                return IndexedPageSource.ofItems(getItems(player));
+            }
+        };
+        index = IndexedPageSource.ofItems(items);
+        lastPage = (entries - 1) / PaginatedItemMenu.ITEMS_PER_PAGE;
+        listViewer = server.createPlayer("ListViewer");
+        sourceViewer = server.createPlayer("SourceViewer");
+        searchViewer = server.createPlayer("SearchViewer");
+        listMenu.open(listViewer);
+        sourceMenu.open(sourceViewer);
+        searchMenu.open(searchViewer);
+        searchMenu.setQuery(searchViewer, PageQuery.<MenuItem>all().text("entry 1"));
+        awaitQuery();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static PageQuery<MenuItem>[] createQueries() {
+        String[] texts = {"1", "entry 2", "en 34", "5", "entry 99"};
+        PageQuery<MenuItem>[] queries = new PageQuery[texts.length];
+        for (int i = 0; i < texts.length; i++) {
+            queries[i] = PageQuery.<MenuItem>all().text(texts[i]);
+        }
+        return queries;
+    }
+
+    /**
+     * Ticks the server until the query started by the search menu is done and shown.
+     */
+    private void awaitQuery() {
+        try {
+            for (int i = 0; i < 100; i++) {
+                server.tick();
+                Thread.sleep(5);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private int nextPage() {
+        onLastPage = !onLastPage;
+        return onLastPage ? lastPage : 0;
+    }
+
+    @Benchmark
+    public void renderPage() {
+        listMenu.update(listViewer);
+    }
+
+    @Benchmark
+    public void flipPage() {
+        listMenu.setPage(listViewer, nextPage());
+    }
+
+    @Benchmark
+    public void flipPageFromSource() {
+        sourceMenu.setPage(sourceViewer, nextPage());
+    }
+
+    @Benchmark
+    public List<MenuItem> queryIndex() {
+        nextQuery = (nextQuery + 1) % queries.length;
+        return index.query(queries[nextQuery]);
+    }
+
+    @Benchmark
+    public int renderSearchedPage() {
+        searchMenu.update(searchViewer);
+        return server.tick();
+    }
+
+}
@@ -0,0 +1,97 @@
+/*
+ * This file is part of AmpMenus.
+ *
+ * Copyright (c) 2014-2021 <https://github.com/Scarsz/AmpMenus/>
+ *
+ * AmpMenus is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * AmpMenus is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with AmpMenus.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ninja.amp.ampmenus.benchmarks;
+
+import ninja.amp.ampmenus.items.StaticMenuItem;
+import ninja.amp.ampmenus.menus.ItemMenu;
+import org.bukkit.Material;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures opening and updating an {@link ninja.amp.ampmenus.menus.ItemMenu} of every
+ * {@link ninja.amp.ampmenus.menus.ItemMenu.Size}, both when no icon changed and when every icon changed.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RenderBenchmark {
+
+    @Param({"ONE_LINE", "TWO_LINE", "THREE_LINE", "FOUR_LINE", "FIVE_LINE", "SIX_LINE"})
+    public ItemMenu.Size size;
+
+    private StubServer server;
+    private ItemMenu staticMenu;
+    private ItemMenu changingMenu;
+    private Player staticViewer;
+    private Player changingViewer;
+
+    @Setup
+    public void setup() {
+        server = StubServer.install();
+        staticMenu = new ItemMenu("Static", size, server.getPlugin());
+        changingMenu = new ItemMenu("Changing", size, server.getPlugin());
+        for (int i = 0; i < size.getSize(); i++) {
+            staticMenu.setItem(i, new StaticMenuItem("Item " + i, new ItemStack(Material.STONE), "Lore of item " + i));
+            changingMenu.setItem(i, new CounterMenuItem(i));
+        }
+        staticViewer = server.createPlayer("StaticViewer");
+        changingViewer = server.createPlayer("ChangingViewer");
+        staticMenu.open(staticViewer);
+        changingMenu.open(changingViewer);
+    }
+
+    @Benchmark
+    public void open() {
+        staticMenu.open(staticViewer);
+        server.tick();
+    }
+
+    @Benchmark
+    public void updateUnchanged() {
+        staticMenu.update(staticViewer);
+    }
+
+    @Benchmark
+    public void updateChanged() {
+        changingMenu.update(changingViewer);
+    }
+
+    @Benchmark
+    public void updateSlot() {
+        changingMenu.updateSlot(changingViewer, 0);
+    }
+
+}
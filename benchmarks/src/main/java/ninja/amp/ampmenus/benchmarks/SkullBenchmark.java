@@ -0,0 +1,114 @@
+/*
+ * This file is part of AmpMenus.
+ *
+ * Copyright (c) 2014-2021 <https://github.com/Scarsz/AmpMenus/>
+ *
+ * AmpMenus is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * AmpMenus is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with AmpMenus.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ninja.amp.ampmenus.benchmarks;
+
+import ninja.amp.ampmenus.items.SkullCache;
+import ninja.amp.ampmenus.items.SkullMenuItem;
+import ninja.amp.ampmenus.menus.ItemMenu;
+import org.bukkit.entity.Player;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures rendering a menu full of {@link ninja.amp.ampmenus.items.SkullMenuItem}s, with the skulls already in the
+ * {@link ninja.amp.ampmenus.items.SkullCache} and with an empty cache. Skulls are created by a stubbed Head that does
+ * not contact Mojang, so only the overhead of AmpMenus is measured.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SkullBenchmark {
+
+    private StubServer server;
+    private ItemMenu menu;
+    private Player viewer;
+    private UUID lastSkull;
+
+    @Setup
+    public void setup() throws InterruptedException {
+        server = StubServer.install();
+        menu = new ItemMenu("Skulls", ItemMenu.Size.SIX_LINE, server.getPlugin());
+        for (int i = 0; i < menu.getSize().getSize(); i++) {
+            lastSkull = UUID.nameUUIDFromBytes(("Skull " + i).getBytes());
+            menu.setItem(i, new SkullMenuItem("Skull " + i, lastSkull, "Lore of skull " + i));
+        }
+        viewer = server.createPlayer("SkullViewer");
+        menu.open(viewer);
+        awaitSkulls();
+    }
+
+    /**
+     * Runs ticks until the skulls being resolved are in the {@link ninja.amp.ampmenus.items.SkullCache} and their slots
+     * are updated.
+     */
+    private void awaitSkulls() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (SkullCache.getInstance().get(lastSkull) == null && System.nanoTime() < deadline) {
+            server.tick();
+            Thread.sleep(1);
+        }
+        server.tick();
+    }
+
+    @Benchmark
+    public void renderCached() {
+        menu.update(viewer);
+    }
+
+    @Benchmark
+    public void renderUncached(UncachedState state) {
+        menu.update(viewer);
+    }
+
+    /**
+     * Empties the {@link ninja.amp.ampmenus.items.SkullCache} before each render and waits for the skulls it starts
+     * resolving afterwards.
+     */
+    @State(Scope.Thread)
+    public static class UncachedState {
+
+        @Setup(Level.Invocation)
+        public void clear() {
+            SkullCache.getInstance().clear();
+        }
+
+        @TearDown(Level.Invocation)
+        public void await(SkullBenchmark benchmark) throws InterruptedException {
+            benchmark.awaitSkulls();
+        }
+
+    }
+
+}
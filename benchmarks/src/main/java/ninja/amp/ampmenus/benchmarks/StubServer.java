@@ -0,0 +1,520 @@
+/*
+ * This file is part of AmpMenus.
+ *
+ * Copyright (c) 2014-2021 <https://github.com/Scarsz/AmpMenus/>
+ *
+ * AmpMenus is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * AmpMenus is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with AmpMenus.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ninja.amp.ampmenus.benchmarks;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Server;
+import org.bukkit.entity.HumanEntity;
+import org.bukkit.entity.Player;
+import org.bukkit.event.Cancellable;
+import org.bukkit.event.Event;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.inventory.InventoryCloseEvent;
+import org.bukkit.event.inventory.InventoryType;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.InventoryHolder;
+import org.bukkit.inventory.InventoryView;
+import org.bukkit.inventory.ItemFactory;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.Damageable;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.bukkit.inventory.meta.SkullMeta;
+import org.bukkit.plugin.PluginManager;
+import org.bukkit.plugin.ServicesManager;
+import org.bukkit.scheduler.BukkitScheduler;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.logging.Logger;
+
+/**
+ * A Bukkit server made of proxies, with just enough behaviour for menus to be opened, rendered and clicked outside of
+ * a real server. Tasks scheduled on the main thread are queued until {@link #tick()} is called, and events are passed
+ * to the listeners registered to its PluginManager when {@link #callEvent(Event)} is called.
+ */
+public class StubServer {
+
+    private static StubServer instance;
+
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final List<RegisteredHandler> handlers = new CopyOnWriteArrayList<>();
+    private final Logger logger = Logger.getLogger("StubServer");
+    private final Server server;
+    private final ItemFactory itemFactory;
+    private final BukkitScheduler scheduler;
+    private final ServicesManager servicesManager;
+    private final PluginManager pluginManager;
+    private final BenchmarkPlugin plugin;
+
+    private StubServer() {
+        itemFactory = proxy(ItemFactory.class, this::handleItemFactory);
+        scheduler = proxy(BukkitScheduler.class, this::handleScheduler);
+        servicesManager = proxy(ServicesManager.class, (proxy, method, args) -> defaultValue(method.getReturnType()));
+        pluginManager = proxy(PluginManager.class, this::handlePluginManager);
+        server = proxy(Server.class, this::handleServer);
+        Bukkit.setServer(server);
+        plugin = new BenchmarkPlugin(server);
+    }
+
+    /**
+     * Installs the stubbed server as the Bukkit server, if it is not installed yet.
+     *
+     * @return The {@link ninja.amp.ampmenus.benchmarks.StubServer}.
+     */
+    public static synchronized StubServer install() {
+        if (instance == null) {
+            instance = new StubServer();
+        }
+        return instance;
+    }
+
+    /**
+     * Gets the plugin used to create menus.
+     *
+     * @return The {@link ninja.amp.ampmenus.benchmarks.BenchmarkPlugin}.
+     */
+    public BenchmarkPlugin getPlugin() {
+        return plugin;
+    }
+
+    /**
+     * Runs the tasks scheduled on the main thread so far. Tasks scheduled by those tasks run on the next tick.
+     *
+     * @return The amount of tasks run.
+     */
+    public int tick() {
+        int count = tasks.size();
+        for (int i = 0; i < count; i++) {
+            Runnable task = tasks.poll();
+            if (task == null) {
+                return i;
+            }
+            task.run();
+        }
+        return count;
+    }
+
+    /**
+     * Calls an event on the listeners registered to the stubbed PluginManager, in order of priority.
+     *
+     * @param event The event.
+     */
+    public void callEvent(Event event) {
+        for (RegisteredHandler handler : handlers) {
+            handler.call(event);
+        }
+    }
+
+    /**
+     * Creates a player who can open menus.
+     *
+     * @param name The name of the player.
+     * @return The Player.
+     */
+    public Player createPlayer(String name) {
+        return proxy(Player.class, new StubPlayer(UUID.nameUUIDFromBytes(name.getBytes()), name));
+    }
+
+    private Object handlePluginManager(Object proxy, Method method, Object[] args) {
+        switch (method.getName()) {
+            case "registerEvents":
+                register((Listener) args[0]);
+                return null;
+            case "callEvent":
+                callEvent((Event) args[0]);
+                return null;
+            default:
+                return objectMethod(proxy, method, args);
+        }
+    }
+
+    private synchronized void register(Listener listener) {
+        List<RegisteredHandler> registered = new ArrayList<>(handlers);
+        for (Method method : listener.getClass().getMethods()) {
+            EventHandler annotation = method.getAnnotation(EventHandler.class);
+            if (annotation != null && method.getParameterCount() == 1 && Event.class.isAssignableFrom(method.getParameterTypes()[0])) {
+                registered.add(new RegisteredHandler(listener, method, annotation));
+            }
+        }
+        registered.sort(Comparator.comparingInt(handler -> handler.priority.ordinal()));
+        handlers.clear();
+        handlers.addAll(registered);
+    }
+
+    private Object handleServer(Object proxy, Method method, Object[] args) {
+        switch (method.getName()) {
+            case "getLogger":
+                return logger;
+            case "getName":
+            case "getVersion":
+            case "getBukkitVersion":
+                return "StubServer";
+            case "getItemFactory":
+                return itemFactory;
+            case "getScheduler":
+                return scheduler;
+            case "getServicesManager":
+                return servicesManager;
+            case "getPluginManager":
+                return pluginManager;
+            case "isPrimaryThread":
+                return true;
+            case "createInventory":
+                int size = args[1] instanceof Integer ? (Integer) args[1] : InventoryType.CHEST.getDefaultSize();
+                String title = args.length > 2 ? (String) args[2] : null;
+                return createInventory((InventoryHolder) args[0], size, title);
+            default:
+                return objectMethod(proxy, method, args);
+        }
+    }
+
+    private Object handleScheduler(Object proxy, Method method, Object[] args) {
+        switch (method.getName()) {
+            case "runTask":
+            case "runTaskLater":
+            case "scheduleSyncDelayedTask":
+                tasks.add((Runnable) args[1]);
+                return defaultValue(method.getReturnType());
+            case "runTaskAsynchronously":
+                ForkJoinPool.commonPool().execute((Runnable) args[1]);
+                return null;
+            case "getMainThreadExecutor":
+                return (java.util.concurrent.Executor) tasks::add;
+            default:
+                return objectMethod(proxy, method, args);
+        }
+    }
+
+    private Object handleItemFactory(Object proxy, Method method, Object[] args) {
+        switch (method.getName()) {
+            case "getItemMeta":
+                return proxy(StubMeta.class, new MetaHandler(new HashMap<>()));
+            case "isApplicable":
+                return true;
+            case "asMetaFor":
+                return args[0];
+            case "updateMaterial":
+                return args[1];
+            case "equals":
+                if (args.length == 2) {
+                    return MetaHandler.values((ItemMeta) args[0]).equals(MetaHandler.values((ItemMeta) args[1]));
+                }
+                return proxy == args[0];
+            default:
+                return objectMethod(proxy, method, args);
+        }
+    }
+
+    private static Inventory createInventory(InventoryHolder holder, int size, String title) {
+        return proxy(Inventory.class, new StubInventory(holder, size, title));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(StubServer.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    private static Object objectMethod(Object proxy, Method method, Object[] args) {
+        switch (method.getName()) {
+            case "equals":
+                return args != null && args.length == 1 ? proxy == args[0] : defaultValue(method.getReturnType());
+            case "hashCode":
+                return method.getParameterCount() == 0 ? System.identityHashCode(proxy) : defaultValue(method.getReturnType());
+            case "toString":
+                return method.getParameterCount() == 0 ? "Stub" + proxy.getClass().getInterfaces()[0].getSimpleName() : null;
+            default:
+                return defaultValue(method.getReturnType());
+        }
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (type == boolean.class) {
+            return false;
+        } else if (type == int.class) {
+            return 0;
+        } else if (type == long.class) {
+            return 0L;
+        } else if (type == double.class) {
+            return 0D;
+        } else if (type == float.class) {
+            return 0F;
+        } else if (type == short.class) {
+            return (short) 0;
+        } else if (type == byte.class) {
+            return (byte) 0;
+        } else if (type == char.class) {
+            return (char) 0;
+        } else if (type == List.class || type == Collection.class) {
+            return Collections.emptyList();
+        } else if (type == Set.class) {
+            return Collections.emptySet();
+        } else if (type == Map.class) {
+            return Collections.emptyMap();
+        }
+        return null;
+    }
+
+    /**
+     * Item meta of every material. The real metas all implement Damageable, which ItemStack relies on.
+     */
+    public interface StubMeta extends SkullMeta, Damageable {
+
+        @Override
+        StubMeta clone();
+
+    }
+
+    private static class MetaHandler implements InvocationHandler {
+
+        private final Map<String, Object> values;
+
+        private MetaHandler(Map<String, Object> values) {
+            this.values = values;
+        }
+
+        private static Map<String, Object> values(ItemMeta meta) {
+            return meta == null ? Collections.emptyMap() : ((MetaHandler) Proxy.getInvocationHandler(meta)).values;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            String name = method.getName();
+            if (name.equals("clone")) {
+                return proxy(StubMeta.class, new MetaHandler(new HashMap<>(values)));
+            } else if (name.equals("equals") && args != null && args.length == 1) {
+                return args[0] instanceof StubMeta && values.equals(values((ItemMeta) args[0]));
+            } else if (name.equals("hashCode") && args == null) {
+                return values.hashCode();
+            } else if (name.equals("toString") && args == null) {
+                return "StubMeta" + values;
+            } else if (name.startsWith("set") && args != null && args.length == 1) {
+                Object value = args[0] instanceof List ? new ArrayList<>((List<?>) args[0]) : args[0];
+                if (value == null) {
+                    values.remove(name.substring(3));
+                } else {
+                    values.put(name.substring(3), value);
+                }
+                return defaultValue(method.getReturnType());
+            } else if (name.startsWith("has") && args == null) {
+                return values.containsKey(name.substring(3));
+            } else if (name.startsWith("get") && args == null) {
+                Object value = values.get(name.substring(3));
+                if (value instanceof List) {
+                    return new ArrayList<>((List<?>) value);
+                }
+                return value != null ? value : defaultValue(method.getReturnType());
+            }
+            return defaultValue(method.getReturnType());
+        }
+
+    }
+
+    private static class StubInventory implements InvocationHandler {
+
+        private final InventoryHolder holder;
+        private final ItemStack[] contents;
+        private final String title;
+        private final List<HumanEntity> viewers = new ArrayList<>();
+
+        private StubInventory(InventoryHolder holder, int size, String title) {
+            this.holder = holder;
+            this.contents = new ItemStack[size];
+            this.title = title;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            switch (method.getName()) {
+                case "getSize":
+                    return contents.length;
+                case "getItem":
+                    return contents[(Integer) args[0]];
+                case "setItem":
+                    contents[(Integer) args[0]] = (ItemStack) args[1];
+                    return null;
+                case "getContents":
+                case "getStorageContents":
+                    return contents.clone();
+                case "clear":
+                    if (args == null) {
+                        java.util.Arrays.fill(contents, null);
+                    } else {
+                        contents[(Integer) args[0]] = null;
+                    }
+                    return null;
+                case "getViewers":
+                    return viewers;
+                case "getHolder":
+                    return holder;
+                case "getType":
+                    return InventoryType.CHEST;
+                case "getTitle":
+                    return title;
+                default:
+                    return objectMethod(proxy, method, args);
+            }
+        }
+
+    }
+
+    private static class RegisteredHandler {
+
+        private final Listener listener;
+        private final Method method;
+        private final Class<?> type;
+        private final EventPriority priority;
+        private final boolean ignoreCancelled;
+
+        private RegisteredHandler(Listener listener, Method method, EventHandler annotation) {
+            this.listener = listener;
+            this.method = method;
+            this.type = method.getParameterTypes()[0];
+            this.priority = annotation.priority();
+            this.ignoreCancelled = annotation.ignoreCancelled();
+        }
+
+        private void call(Event event) {
+            if (!type.isInstance(event) || (ignoreCancelled && event instanceof Cancellable && ((Cancellable) event).isCancelled())) {
+                return;
+            }
+            try {
+                method.invoke(listener, event);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Could not pass " + event.getClass().getSimpleName() + " to " + listener, e);
+            }
+        }
+
+    }
+
+    private class StubPlayer implements InvocationHandler {
+
+        private final UUID uuid;
+        private final String name;
+        private final Inventory playerInventory;
+        private InventoryView view;
+
+        private StubPlayer(UUID uuid, String name) {
+            this.uuid = uuid;
+            this.name = name;
+            this.playerInventory = createInventory(null, 36, name);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            switch (method.getName()) {
+                case "getUniqueId":
+                    return uuid;
+                case "getName":
+                case "getDisplayName":
+                    return name;
+                case "isOnline":
+                    return true;
+                case "getOpenInventory":
+                    if (view == null) {
+                        view = new StubView((Player) proxy, createInventory(null, 5, "Crafting"), playerInventory, "Crafting");
+                    }
+                    return view;
+                case "openInventory":
+                    if (!(args[0] instanceof Inventory)) {
+                        return null;
+                    }
+                    close(proxy);
+                    Inventory inventory = (Inventory) args[0];
+                    inventory.getViewers().add((HumanEntity) proxy);
+                    view = new StubView((Player) proxy, inventory, playerInventory, ((StubInventory) Proxy.getInvocationHandler(inventory)).title);
+                    return view;
+                case "closeInventory":
+                    close(proxy);
+                    return null;
+                default:
+                    return objectMethod(proxy, method, args);
+            }
+        }
+
+        private void close(Object proxy) {
+            if (view != null) {
+                InventoryView closed = view;
+                callEvent(new InventoryCloseEvent(closed));
+                closed.getTopInventory().getViewers().remove(proxy);
+                if (view == closed) {
+                    view = null;
+                }
+            }
+        }
+
+    }
+
+    private static class StubView extends InventoryView {
+
+        private final Player player;
+        private final Inventory top;
+        private final Inventory bottom;
+        private final String title;
+
+        private StubView(Player player, Inventory top, Inventory bottom, String title) {
+            this.player = player;
+            this.top = top;
+            this.bottom = bottom;
+            this.title = title;
+        }
+
+        @Override
+        public Inventory getTopInventory() {
+            return top;
+        }
+
+        @Override
+        public Inventory getBottomInventory() {
+            return bottom;
+        }
+
+        @Override
+        public HumanEntity getPlayer() {
+            return player;
+        }
+
+        @Override
+        public InventoryType getType() {
+            return InventoryType.CHEST;
+        }
+
+        @Override
+        public String getTitle() {
+            return title;
+        }
+
+    }
+
+}
@@ -0,0 +1,209 @@
+/*
+ * This file is part of AmpMenus.
+ *
+ * Copyright (c) 2014-2021 <https://github.com/Scarsz/AmpMenus/>
+ *
+ * AmpMenus is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * AmpMenus is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with AmpMenus.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ninja.amp.ampmenus;
+
+import org.bukkit.Bukkit;
+import org.bukkit.event.Event;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.event.inventory.InventoryCloseEvent;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.player.PlayerResourcePackStatusEvent;
+import org.bukkit.event.server.PluginDisableEvent;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.plugin.RegisteredServiceProvider;
+import org.bukkit.plugin.ServicePriority;
+import org.bukkit.plugin.ServicesManager;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Receives the inventory events of the server and hands each one to the copy of AmpMenus that opened the menu of the
+ * player involved. Every plugin shading AmpMenus registers a dispatcher with the ServicesManager, and only one of them
+ * listens to events; the others add their menu sessions to it. Since each shaded copy has its own classes, dispatchers
+ * find each other by class name and only talk through Java and Bukkit types.
+ *
+ * <p>The dispatchers share the event handlers of all copies as a pair: the handlers of the copies with a menu open, by
+ * UUID of the player viewing it, and the handlers of every connected copy, which receive events such as players quitting
+ * or plugins disabling whether or not they have a menu open.</p>
+ */
+public class MenuDispatcher implements Listener, Supplier<Map.Entry<Map<UUID, Consumer<Event>>, Set<Consumer<Event>>>>,
+        Consumer<Map.Entry<Map<UUID, Consumer<Event>>, Set<Consumer<Event>>>> {
+
+    private static MenuDispatcher instance;
+
+    private final Plugin plugin;
+    private Map<UUID, Consumer<Event>> handlers;
+    private Set<Consumer<Event>> listeners;
+
+    private MenuDispatcher(Plugin plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Connects this copy of AmpMenus to the listening dispatcher, making this copy's dispatcher the listening one if
+     * there is none yet.
+     *
+     * @param plugin The plugin using this copy of AmpMenus.
+     * @return The event handlers of the listening dispatcher: the handlers by UUID of the player viewing the menu, and
+     * the handlers of every connected copy.
+     */
+    static Map.Entry<Map<UUID, Consumer<Event>>, Set<Consumer<Event>>> connect(Plugin plugin) {
+        if (instance == null || !instance.plugin.isEnabled()) {
+            instance = new MenuDispatcher(plugin);
+            Bukkit.getServicesManager().register(MenuDispatcher.class, instance, plugin, ServicePriority.Normal);
+        }
+        Map.Entry<Map<UUID, Consumer<Event>>, Set<Consumer<Event>>> handlers = findHandlers();
+        if (handlers == null) {
+            handlers = new AbstractMap.SimpleImmutableEntry<>(new HashMap<>(), new HashSet<>());
+            instance.accept(handlers);
+        }
+        return handlers;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map.Entry<Map<UUID, Consumer<Event>>, Set<Consumer<Event>>> findHandlers() {
+        ServicesManager services = Bukkit.getServicesManager();
+        for (Class<?> service : services.getKnownServices()) {
+            if (service.getSimpleName().equals(MenuDispatcher.class.getSimpleName())) {
+                for (RegisteredServiceProvider<?> registration : services.getRegistrations(service)) {
+                    if (registration.getPriority() == ServicePriority.Highest && registration.getPlugin().isEnabled()
+                            && registration.getProvider() instanceof Supplier) {
+                        return ((Supplier<Map.Entry<Map<UUID, Consumer<Event>>, Set<Consumer<Event>>>>) registration.getProvider()).get();
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gets the event handlers of the dispatcher.
+     *
+     * @return The handlers by UUID of the player viewing the menu and the handlers of every connected copy, or null if
+     * the dispatcher is not the listening one.
+     */
+    @Override
+    public Map.Entry<Map<UUID, Consumer<Event>>, Set<Consumer<Event>>> get() {
+        return handlers != null ? new AbstractMap.SimpleImmutableEntry<>(handlers, listeners) : null;
+    }
+
+    /**
+     * Makes the dispatcher the listening one, taking over the event handlers of the previous one.
+     *
+     * @param handlers The handlers by UUID of the player viewing the menu and the handlers of every connected copy.
+     */
+    @Override
+    public void accept(Map.Entry<Map<UUID, Consumer<Event>>, Set<Consumer<Event>>> handlers) {
+        this.handlers = handlers.getKey();
+        this.listeners = handlers.getValue();
+        Bukkit.getServicesManager().unregister(MenuDispatcher.class, this);
+        Bukkit.getServicesManager().register(MenuDispatcher.class, this, plugin, ServicePriority.Highest);
+        plugin.getServer().getPluginManager().registerEvents(this, plugin);
+    }
+
+    @EventHandler(priority = EventPriority.HIGHEST, ignoreCancelled = true)
+    public void onInventoryClick(InventoryClickEvent event) {
+        dispatch(event.getWhoClicked().getUniqueId(), event);
+    }
+
+    @EventHandler(priority = EventPriority.HIGHEST)
+    public void onInventoryClose(InventoryCloseEvent event) {
+        dispatch(event.getPlayer().getUniqueId(), event);
+    }
+
+    @EventHandler(priority = EventPriority.HIGHEST)
+    public void onPlayerResourcePackStatus(PlayerResourcePackStatusEvent event) {
+        dispatch(event.getPlayer().getUniqueId(), event);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        broadcast(event);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerChangedWorld(PlayerChangedWorldEvent event) {
+        broadcast(event);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPluginDisable(PluginDisableEvent event) {
+        broadcast(event);
+        if (event.getPlugin().equals(plugin)) {
+            handOver(event.getPlugin());
+        }
+    }
+
+    /**
+     * Hands an event to every connected copy of AmpMenus, whether or not it has a menu open, so that each copy can
+     * discard the state it keeps for the player or plugin involved.
+     *
+     * @param event The event.
+     */
+    private void broadcast(Event event) {
+        for (Consumer<Event> handler : new ArrayList<>(listeners)) {
+            handler.accept(event);
+        }
+    }
+
+    private void dispatch(UUID uuid, Event event) {
+        Consumer<Event> handler = handlers.get(uuid);
+        if (handler != null) {
+            handler.accept(event);
+        }
+    }
+
+    /**
+     * Stops listening to events and passes the event handlers to the dispatcher of another enabled plugin.
+     *
+     * @param disabling The plugin being disabled.
+     */
+    @SuppressWarnings("unchecked")
+    private void handOver(Plugin disabling) {
+        HandlerList.unregisterAll(this);
+        ServicesManager services = Bukkit.getServicesManager();
+        services.unregister(MenuDispatcher.class, this);
+        for (Class<?> service : services.getKnownServices()) {
+            if (service.getSimpleName().equals(MenuDispatcher.class.getSimpleName())) {
+                for (RegisteredServiceProvider<?> registration : services.getRegistrations(service)) {
+                    if (registration.getProvider() != this && !registration.getPlugin().equals(disabling)
+                            && registration.getPlugin().isEnabled() && registration.getProvider() instanceof Consumer) {
+                        ((Consumer<Map.Entry<Map<UUID, Consumer<Event>>, Set<Consumer<Event>>>>) registration.getProvider())
+                                .accept(new AbstractMap.SimpleImmutableEntry<>(handlers, listeners));
+                        return;
+                    }
+                }
+            }
+        }
+    }
+
+}
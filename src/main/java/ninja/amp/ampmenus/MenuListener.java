@@ -18,29 +18,51 @@
  */
 package ninja.amp.ampmenus;
 
+import ninja.amp.ampmenus.items.RenderCache;
+import ninja.amp.ampmenus.menus.ClickLimiter;
+import ninja.amp.ampmenus.menus.InventoryPool;
 import ninja.amp.ampmenus.menus.ItemMenu;
 import ninja.amp.ampmenus.menus.MenuHolder;
+import ninja.amp.ampmenus.menus.MenuPrewarmer;
+import ninja.amp.ampmenus.menus.MenuSession;
+import ninja.amp.ampmenus.menus.MenuStateStore;
 import org.bukkit.Bukkit;
+import org.bukkit.entity.HumanEntity;
 import org.bukkit.entity.Player;
-import org.bukkit.event.EventHandler;
-import org.bukkit.event.EventPriority;
-import org.bukkit.event.HandlerList;
+import org.bukkit.event.Event;
 import org.bukkit.event.Listener;
 import org.bukkit.event.inventory.InventoryClickEvent;
 import org.bukkit.event.inventory.InventoryCloseEvent;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
 import org.bukkit.event.player.PlayerResourcePackStatusEvent;
 import org.bukkit.event.server.PluginDisableEvent;
 import org.bukkit.inventory.Inventory;
 import org.bukkit.plugin.Plugin;
-import org.bukkit.plugin.RegisteredListener;
 import org.bukkit.plugin.java.JavaPlugin;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+
 /**
- * Passes inventory events to their menus for handling.
+ * Passes inventory events to their menus for handling. Events are received through the {@link MenuDispatcher} shared
+ * by all plugins using AmpMenus rather than from the PluginManager. The {@link ninja.amp.ampmenus.MenuListener} is a
+ * Listener only for compatibility with code passing it around as one; registering it with the PluginManager has no
+ * effect, use {@link #register(JavaPlugin)} instead.
  */
 public class MenuListener implements Listener {
 
     private Plugin plugin = null;
+    private Map<UUID, Consumer<Event>> handlers = null;
+    private Set<Consumer<Event>> listeners = null;
+    private final Consumer<Event> handler = this::dispatch;
+    private final Map<UUID, MenuSession> sessions = new HashMap<>();
     private static final MenuListener INSTANCE = new MenuListener();
 
     private MenuListener() {
@@ -55,38 +77,61 @@ public class MenuListener implements Listener {
         return INSTANCE;
     }
 
-    @EventHandler(priority = EventPriority.HIGHEST, ignoreCancelled = true)
+    /**
+     * Handles an event passed on by the {@link MenuDispatcher} for a player viewing one of this copy's menus.
+     *
+     * @param event The event.
+     */
+    private void dispatch(Event event) {
+        if (event instanceof InventoryClickEvent) {
+            onInventoryClick((InventoryClickEvent) event);
+        } else if (event instanceof InventoryCloseEvent) {
+            onInventoryClose((InventoryCloseEvent) event);
+        } else if (event instanceof PlayerResourcePackStatusEvent) {
+            onPlayerResourcePackStatus((PlayerResourcePackStatusEvent) event);
+        } else if (event instanceof PlayerQuitEvent) {
+            onPlayerQuit((PlayerQuitEvent) event);
+        } else if (event instanceof PlayerChangedWorldEvent) {
+            onPlayerChangedWorld((PlayerChangedWorldEvent) event);
+        } else if (event instanceof PluginDisableEvent) {
+            onPluginDisable((PluginDisableEvent) event);
+        }
+    }
+
     public void onInventoryClick(InventoryClickEvent event) {
-        if (event.getWhoClicked() instanceof Player && event.getInventory().getHolder() instanceof MenuHolder) {
+        MenuSession session = getSession(event.getWhoClicked(), event.getInventory());
+        if (session != null) {
             event.setCancelled(true);
-            ItemMenu menu = ((MenuHolder) event.getInventory().getHolder()).getMenu();
-            menu.onInventoryClick(event);
+            session.getMenu().onInventoryClick(event);
         }
     }
 
-    @EventHandler(priority = EventPriority.HIGHEST)
     public void onInventoryClose(InventoryCloseEvent event) {
-        if (event.getInventory().getHolder() instanceof MenuHolder) {
-            ItemMenu menu = ((MenuHolder) event.getInventory().getHolder()).getMenu();
-
-            if (event.getPlayer() instanceof Player) {
-                Player player = (Player) event.getPlayer();
-                if (menu.isAllowedToClose(player)) {
-                    menu.onInventoryClose(event);
-                } else {
-                    Bukkit.getScheduler().runTask(plugin, () -> menu.open(player));
-                }
-            } else {
+        MenuSession session = getSession(event.getPlayer(), event.getInventory());
+        if (session != null) {
+            MenuHolder holder = session.getHolder();
+            ItemMenu menu = holder.getMenu();
+            holder.cancelLoad();
+            endSession(session);
+
+            Player player = session.getPlayer();
+            if (menu.isAllowedToClose(player)) {
                 menu.onInventoryClose(event);
+                Bukkit.getScheduler().runTask(plugin, () -> MenuStateStore.getInstance().evict(session, sessions.get(player.getUniqueId())));
+            } else {
+                Bukkit.getScheduler().runTask(plugin, () -> menu.open(player));
+            }
+
+            if (menu.isInventoryPooling() && !menu.isShared()) {
+                InventoryPool.getInstance().release(holder);
             }
         }
     }
 
-    @EventHandler(priority = EventPriority.HIGHEST)
     public void onPlayerResourcePackStatus(PlayerResourcePackStatusEvent event) {
-        Inventory inventory = event.getPlayer().getOpenInventory().getTopInventory();
-        if (inventory.getHolder() instanceof MenuHolder) {
-            ItemMenu menu = ((MenuHolder) inventory.getHolder()).getMenu();
+        MenuSession session = sessions.get(event.getPlayer().getUniqueId());
+        if (session != null) {
+            ItemMenu menu = session.getMenu();
 
             Player player = event.getPlayer();
             if (menu.isAllowedToClose(player)) {
@@ -97,15 +142,100 @@ public class MenuListener implements Listener {
         }
     }
 
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        MenuSession session = sessions.get(event.getPlayer().getUniqueId());
+        if (session != null) {
+            session.getHolder().cancelLoad();
+            endSession(session);
+        }
+        MenuStateStore.getInstance().evict(event.getPlayer().getUniqueId());
+        RenderCache.getInstance().invalidate(event.getPlayer().getUniqueId());
+        MenuPrewarmer.getInstance().invalidate(event.getPlayer().getUniqueId());
+        ClickLimiter.evict(event.getPlayer().getUniqueId());
+    }
+
+    public void onPlayerChangedWorld(PlayerChangedWorldEvent event) {
+        MenuStateStore.getInstance().evict(event.getPlayer().getUniqueId());
+    }
+
     /**
-     * Registers the events of the {@link ninja.amp.ampmenus.MenuListener} to a plugin.
+     * Gets the menu session of a player viewing an Inventory.
+     *
+     * @param entity    The player.
+     * @param inventory The Inventory.
+     * @return The {@link ninja.amp.ampmenus.menus.MenuSession}, or null if the Inventory is not a menu the player has open.
+     */
+    private MenuSession getSession(HumanEntity entity, Inventory inventory) {
+        MenuSession session = sessions.get(entity.getUniqueId());
+        if (session != null && (session.getInventory() == inventory || session.getInventory().equals(inventory))) {
+            return session;
+        }
+        return null;
+    }
+
+    /**
+     * Gets the menu session of a player.
+     *
+     * @param player The player.
+     * @return The {@link ninja.amp.ampmenus.menus.MenuSession}, or null if the player has no menu open.
+     */
+    public MenuSession getSession(Player player) {
+        return sessions.get(player.getUniqueId());
+    }
+
+    /**
+     * Gets the menu sessions of all players viewing a menu.
+     *
+     * @return The {@link ninja.amp.ampmenus.menus.MenuSession}s.
+     */
+    public Collection<MenuSession> getSessions() {
+        return Collections.unmodifiableCollection(sessions.values());
+    }
+
+    /**
+     * Starts tracking a player viewing a menu. Called by {@link ninja.amp.ampmenus.menus.ItemMenu} once the menu has
+     * been opened.
+     *
+     * @param player The player.
+     * @param holder The {@link ninja.amp.ampmenus.menus.MenuHolder} of the Inventory the player opened.
+     * @return The {@link ninja.amp.ampmenus.menus.MenuSession}.
+     */
+    public MenuSession startSession(Player player, MenuHolder holder) {
+        MenuSession session = new MenuSession(player, holder);
+        sessions.put(player.getUniqueId(), session);
+        handlers.put(player.getUniqueId(), handler);
+        return session;
+    }
+
+    private void endSession(MenuSession session) {
+        if (sessions.get(session.getPlayer().getUniqueId()) == session) {
+            sessions.remove(session.getPlayer().getUniqueId());
+            handlers.remove(session.getPlayer().getUniqueId(), handler);
+        }
+    }
+
+    /**
+     * Registers the {@link ninja.amp.ampmenus.MenuListener} to a plugin, connecting it to the {@link MenuDispatcher}
+     * that receives the events of all plugins using AmpMenus.
      *
      * @param plugin The plugin used to register the events.
      */
     public void register(JavaPlugin plugin) {
         if (!isRegistered(plugin)) {
-            plugin.getServer().getPluginManager().registerEvents(INSTANCE, plugin);
             this.plugin = plugin;
+            Map.Entry<Map<UUID, Consumer<Event>>, Set<Consumer<Event>>> connected = MenuDispatcher.connect(plugin);
+            if (handlers != null && handlers != connected.getKey()) {
+                for (UUID uuid : sessions.keySet()) {
+                    handlers.remove(uuid, handler);
+                    connected.getKey().put(uuid, handler);
+                }
+            }
+            if (listeners != null && listeners != connected.getValue()) {
+                listeners.remove(handler);
+            }
+            handlers = connected.getKey();
+            listeners = connected.getValue();
+            listeners.add(handler);
         }
     }
 
@@ -116,34 +246,33 @@ public class MenuListener implements Listener {
      * @return True if the {@link ninja.amp.ampmenus.MenuListener} is registered to the plugin, else false.
      */
     public boolean isRegistered(JavaPlugin plugin) {
-        if (plugin.equals(this.plugin)) {
-            for (RegisteredListener listener : HandlerList.getRegisteredListeners(plugin)) {
-                if (listener.getListener().equals(INSTANCE)) {
-                    return true;
-                }
-            }
-        }
-        return false;
+        return plugin.equals(this.plugin) && handlers != null && plugin.isEnabled();
     }
 
     /**
      * Closes all {@link ninja.amp.ampmenus.menus.ItemMenu}s currently open.
      */
     public static void closeOpenMenus() {
-        for (Player player : Bukkit.getOnlinePlayers()) {
-            if (player.getOpenInventory() != null) {
-                Inventory inventory = player.getOpenInventory().getTopInventory();
-                if (inventory.getHolder() instanceof MenuHolder) {
-                    player.closeInventory();
-                }
-            }
+        for (MenuSession session : new ArrayList<>(INSTANCE.sessions.values())) {
+            session.getPlayer().closeInventory();
         }
     }
 
-    @EventHandler(priority = EventPriority.MONITOR)
     public void onPluginDisable(PluginDisableEvent event) {
         if (event.getPlugin().equals(plugin)) {
             closeOpenMenus();
+            for (UUID uuid : sessions.keySet()) {
+                handlers.remove(uuid, handler);
+            }
+            sessions.clear();
+            handlers = null;
+            listeners.remove(handler);
+            listeners = null;
+            InventoryPool.getInstance().clear();
+            MenuStateStore.getInstance().clear();
+            RenderCache.getInstance().clear();
+            MenuPrewarmer.getInstance().clear();
+            ClickLimiter.clear();
             plugin = null;
         }
     }
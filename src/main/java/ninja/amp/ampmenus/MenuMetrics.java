@@ -0,0 +1,276 @@
+/*
+ * This file is part of AmpMenus.
+ *
+ * Copyright (c) 2014-2021 <https://github.com/Scarsz/AmpMenus/>
+ *
+ * AmpMenus is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * AmpMenus is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with AmpMenus.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ninja.amp.ampmenus;
+
+import ninja.amp.ampmenus.items.MenuItem;
+import ninja.amp.ampmenus.menus.RenderContext;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records how long menus take to open, render, update and handle clicks, per {@link ninja.amp.ampmenus.menus.ItemMenu}
+ * class, and how long {@link ninja.amp.ampmenus.items.MenuItem}s take to create their icons, per
+ * {@link ninja.amp.ampmenus.items.MenuItem} class. Recording is lock-free and disabled by default; while disabled it
+ * costs a single field read.
+ */
+public class MenuMetrics {
+
+    private static final MenuMetrics INSTANCE = new MenuMetrics();
+
+    private final Map<Operation, ConcurrentMap<Class<?>, Timer>> timers = new EnumMap<>(Operation.class);
+    private volatile boolean enabled = false;
+
+    private MenuMetrics() {
+        for (Operation operation : Operation.values()) {
+            timers.put(operation, new ConcurrentHashMap<>());
+        }
+    }
+
+    /**
+     * Gets the {@link ninja.amp.ampmenus.MenuMetrics} instance.
+     *
+     * @return The {@link ninja.amp.ampmenus.MenuMetrics} instance.
+     */
+    public static MenuMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Checks if metrics are being recorded.
+     *
+     * @return True if metrics are recorded, else false.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Sets if metrics are recorded.
+     *
+     * @param enabled If metrics are recorded.
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Gets the recorded timers of an operation.
+     *
+     * @param operation The {@link ninja.amp.ampmenus.MenuMetrics.Operation}.
+     * @return The {@link ninja.amp.ampmenus.MenuMetrics.Timer}s, by menu or item class.
+     */
+    public Map<Class<?>, Timer> getTimers(Operation operation) {
+        return Collections.unmodifiableMap(timers.get(operation));
+    }
+
+    /**
+     * Gets the recorded timer of an operation for a class.
+     *
+     * @param operation The {@link ninja.amp.ampmenus.MenuMetrics.Operation}.
+     * @param type      The menu or item class.
+     * @return The {@link ninja.amp.ampmenus.MenuMetrics.Timer}, or null if nothing was recorded.
+     */
+    public Timer getTimer(Operation operation, Class<?> type) {
+        return timers.get(operation).get(type);
+    }
+
+    /**
+     * Discards all recorded metrics.
+     */
+    public void reset() {
+        for (Map<Class<?>, Timer> map : timers.values()) {
+            map.clear();
+        }
+    }
+
+    /**
+     * Starts timing an operation.
+     *
+     * @return The start time, or 0 if metrics are disabled.
+     */
+    public long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Records an operation started with {@link #start()}.
+     *
+     * @param operation The {@link ninja.amp.ampmenus.MenuMetrics.Operation}.
+     * @param type      The menu or item class.
+     * @param start     The start time.
+     * @param slots     The amount of slots written by the operation.
+     */
+    public void record(Operation operation, Class<?> type, long start, int slots) {
+        if (start != 0) {
+            timers.get(operation).computeIfAbsent(type, t -> new Timer()).record(System.nanoTime() - start, slots);
+        }
+    }
+
+    /**
+     * Gets the icon of a {@link ninja.amp.ampmenus.items.MenuItem}, timing the call if metrics are enabled.
+     *
+     * @param item    The {@link ninja.amp.ampmenus.items.MenuItem}.
+     * @param player  The player.
+     * @param context The {@link ninja.amp.ampmenus.menus.RenderContext} of the render.
+     * @return The final icon.
+     */
+    public ItemStack getFinalIcon(MenuItem item, Player player, RenderContext context) {
+        long start = start();
+        ItemStack icon = item.getFinalIcon(player, context);
+        record(Operation.ICON, item.getClass(), start, 0);
+        return icon;
+    }
+
+    /**
+     * Operations recorded by the {@link ninja.amp.ampmenus.MenuMetrics}.
+     */
+    public enum Operation {
+        /**
+         * Opening a menu, by menu class.
+         */
+        OPEN,
+        /**
+         * Rendering all slots of a menu, by menu class.
+         */
+        APPLY,
+        /**
+         * Updating a menu for a player, by menu class.
+         */
+        UPDATE,
+        /**
+         * Handling a click in a menu, by menu class.
+         */
+        CLICK,
+        /**
+         * Creating the icon of an item, by item class.
+         */
+        ICON
+    }
+
+    /**
+     * The count, latency histogram and slot writes recorded for an operation.
+     */
+    public static class Timer {
+
+        private static final int BUCKETS = 40;
+
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAdder slots = new LongAdder();
+        private final LongAdder[] histogram = new LongAdder[BUCKETS];
+
+        private Timer() {
+            for (int i = 0; i < BUCKETS; i++) {
+                histogram[i] = new LongAdder();
+            }
+        }
+
+        private void record(long nanos, int written) {
+            count.increment();
+            totalNanos.add(nanos);
+            if (written > 0) {
+                slots.add(written);
+            }
+            histogram[Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(Math.max(nanos, 0)))].increment();
+        }
+
+        /**
+         * Gets the amount of recorded operations.
+         *
+         * @return The count.
+         */
+        public long getCount() {
+            return count.sum();
+        }
+
+        /**
+         * Gets the total time spent in the recorded operations.
+         *
+         * @return The time in nanoseconds.
+         */
+        public long getTotalNanos() {
+            return totalNanos.sum();
+        }
+
+        /**
+         * Gets the average time spent in a recorded operation.
+         *
+         * @return The time in nanoseconds.
+         */
+        public double getMeanNanos() {
+            long count = getCount();
+            return count == 0 ? 0 : (double) getTotalNanos() / count;
+        }
+
+        /**
+         * Gets the amount of slots written by the recorded operations.
+         *
+         * @return The amount of slots.
+         */
+        public long getSlotsWritten() {
+            return slots.sum();
+        }
+
+        /**
+         * Gets the latency histogram. Bucket i counts the operations that took less than 2^i nanoseconds and at least
+         * 2^(i-1).
+         *
+         * @return The counts of each bucket.
+         */
+        public long[] getHistogram() {
+            long[] counts = new long[BUCKETS];
+            for (int i = 0; i < BUCKETS; i++) {
+                counts[i] = histogram[i].sum();
+            }
+            return counts;
+        }
+
+        /**
+         * Estimates a percentile of the latency from the histogram.
+         *
+         * @param percentile The percentile, from 0 to 100.
+         * @return The upper bound of the bucket holding the percentile, in nanoseconds.
+         */
+        public long getPercentile(double percentile) {
+            long[] counts = getHistogram();
+            long total = 0;
+            for (long c : counts) {
+                total += c;
+            }
+            long target = (long) Math.ceil(total * percentile / 100);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += counts[i];
+                if (seen >= target && seen > 0) {
+                    return 1L << i;
+                }
+            }
+            return 0;
+        }
+
+    }
+
+}
@@ -0,0 +1,56 @@
+/*
+ * This file is part of AmpMenus.
+ *
+ * Copyright (c) 2014-2021 <https://github.com/Scarsz/AmpMenus/>
+ *
+ * AmpMenus is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * AmpMenus is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with AmpMenus.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ninja.amp.ampmenus.config;
+
+import ninja.amp.ampmenus.events.ItemClickEvent;
+import ninja.amp.ampmenus.items.StaticMenuItem;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * A {@link ninja.amp.ampmenus.items.StaticMenuItem} defined in a menu file, running its configured action when clicked.
+ */
+public class ConfiguredMenuItem extends StaticMenuItem {
+
+    private final Consumer<ItemClickEvent> action;
+
+    public ConfiguredMenuItem(String displayName, ItemStack icon, List<String> lore, Consumer<ItemClickEvent> action) {
+        super(displayName, icon, lore.toArray(new String[0]));
+        this.action = action;
+    }
+
+    /**
+     * Gets the action run when the {@link ninja.amp.ampmenus.config.ConfiguredMenuItem} is clicked.
+     *
+     * @return The action, or null if clicking does nothing.
+     */
+    public Consumer<ItemClickEvent> getAction() {
+        return action;
+    }
+
+    @Override
+    public void onItemClick(ItemClickEvent event) {
+        if (action != null) {
+            action.accept(event);
+        }
+    }
+
+}
@@ -0,0 +1,363 @@
+/*
+ * This file is part of AmpMenus.
+ *
+ * Copyright (c) 2014-2021 <https://github.com/Scarsz/AmpMenus/>
+ *
+ * AmpMenus is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * AmpMenus is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with AmpMenus.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ninja.amp.ampmenus.config;
+
+import ninja.amp.ampmenus.events.ItemClickEvent;
+import ninja.amp.ampmenus.items.MenuItem;
+import ninja.amp.ampmenus.menus.ItemMenu;
+import ninja.amp.ampmenus.menus.MenuSession;
+import org.bukkit.Bukkit;
+import org.bukkit.ChatColor;
+import org.bukkit.Material;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Builds {@link ninja.amp.ampmenus.menus.ItemMenu}s from a YAML file. Each menu is built once, with its icons dressed
+ * up front, and rebuilt on {@link #reload()} only if its definition changed; unchanged menus are kept as they are.
+ * Players viewing a menu that was changed or removed are moved to the new menu or have it closed, and the old menu is
+ * destroyed once no player is viewing it anymore.
+ *
+ * <pre>
+ * menus:
+ *   main:
+ *     title: "&amp;6Main Menu"
+ *     rows: 3
+ *     fill:
+ *       material: BLACK_STAINED_GLASS_PANE
+ *       name: " "
+ *     items:
+ *       "11":
+ *         material: EMERALD
+ *         name: "&amp;aShop"
+ *         lore: ["&amp;7Buy things"]
+ *         action: open shop
+ *       "26":
+ *         material: BARRIER
+ *         name: "&amp;cClose"
+ *         action: close
+ *   shop:
+ *     title: "Shop"
+ *     rows: 6
+ *     parent: main
+ *     items:
+ *       "0-8":
+ *         material: DIAMOND
+ *         name: "Diamond"
+ *         action: command buy diamond
+ * </pre>
+ *
+ * Slots are given as a number, a range such as {@code 0-8}, or a list of both such as {@code 0,8,9-17}. The actions
+ * {@code close}, {@code back}, {@code open <menu>} and {@code command <command>} are built in, and more can be added
+ * with {@link #registerAction(String, BiConsumer)}. Menus linked with {@code open} are looked up by id when clicked, so
+ * links always lead to the current version of a menu.
+ */
+public class MenuLoader {
+
+    private static final long DESTROY_DELAY = 5;
+
+    private final JavaPlugin plugin;
+    private final File file;
+    private final Map<String, BiConsumer<ItemClickEvent, String>> actions = new HashMap<>();
+    private final Map<String, ItemMenu> menus = new LinkedHashMap<>();
+    private final Map<String, Map<String, Object>> definitions = new HashMap<>();
+    private final List<ItemMenu> retired = new ArrayList<>();
+    private BukkitTask destroyTask;
+
+    /**
+     * Creates a {@link ninja.amp.ampmenus.config.MenuLoader}. No menus are loaded until {@link #reload()} is called.
+     *
+     * @param plugin The {@link org.bukkit.plugin.java.JavaPlugin} instance.
+     * @param file   The YAML file defining the menus.
+     */
+    public MenuLoader(JavaPlugin plugin, File file) {
+        this.plugin = plugin;
+        this.file = file;
+        registerAction("close", (event, argument) -> event.setWillClose(true));
+        registerAction("back", (event, argument) -> event.setWillGoBack(true));
+        registerAction("open", (event, argument) -> {
+            ItemMenu menu = menus.get(argument);
+            if (menu != null) {
+                event.setWillOpen(menu);
+            }
+        });
+        registerAction("command", (event, argument) -> event.getPlayer().performCommand(argument));
+    }
+
+    /**
+     * Registers an action that items can run when clicked. The action receives the text following its name in the
+     * item's {@code action}, or an empty string if there is none. Register actions before loading the menus using them.
+     *
+     * @param name   The name of the action.
+     * @param action The action.
+     */
+    public void registerAction(String name, BiConsumer<ItemClickEvent, String> action) {
+        actions.put(name.toLowerCase(), action);
+    }
+
+    /**
+     * Gets a loaded menu.
+     *
+     * @param id The id of the menu.
+     * @return The {@link ninja.amp.ampmenus.menus.ItemMenu}, or null if no menu has the id.
+     */
+    public ItemMenu getMenu(String id) {
+        return menus.get(id);
+    }
+
+    /**
+     * Gets all loaded menus.
+     *
+     * @return The {@link ninja.amp.ampmenus.menus.ItemMenu}s, by id.
+     */
+    public Map<String, ItemMenu> getMenus() {
+        return Collections.unmodifiableMap(menus);
+    }
+
+    /**
+     * Loads the menus from the file, rebuilding only those whose definition changed. Must be called on the main thread.
+     *
+     * @return The ids of the menus that were built.
+     * @throws IOException                   If the file could not be read.
+     * @throws InvalidConfigurationException If the file is not valid YAML.
+     */
+    public Set<String> reload() throws IOException, InvalidConfigurationException {
+        YamlConfiguration config = new YamlConfiguration();
+        config.load(file);
+        return load(config.isConfigurationSection("menus") ? config.getConfigurationSection("menus") : config);
+    }
+
+    /**
+     * Loads the menus defined in a configuration section, rebuilding only those whose definition changed. Menus missing
+     * from the section are removed. Must be called on the main thread.
+     *
+     * @param section The section holding one section per menu, by id.
+     * @return The ids of the menus that were built.
+     */
+    public Set<String> load(ConfigurationSection section) {
+        Map<String, ItemMenu> loaded = new LinkedHashMap<>();
+        Map<String, Map<String, Object>> loadedDefinitions = new HashMap<>();
+        Set<String> built = new LinkedHashSet<>();
+        List<String> links = new ArrayList<>();
+        for (String id : section.getKeys(false)) {
+            if (!section.isConfigurationSection(id)) {
+                warn("Menu " + id + " is not a section");
+                continue;
+            }
+            ConfigurationSection menuSection = section.getConfigurationSection(id);
+            Map<String, Object> definition = toMap(menuSection);
+            ItemMenu menu = menus.get(id);
+            if (menu == null || !definition.equals(definitions.get(id))) {
+                ItemMenu rebuilt = build(id, menuSection, links);
+                if (rebuilt != null) {
+                    menu = rebuilt;
+                    built.add(id);
+                } else if (menu != null) {
+                    warn("Keeping the previous version of menu " + id);
+                    definition = definitions.get(id);
+                } else {
+                    continue;
+                }
+            }
+            loaded.put(id, menu);
+            loadedDefinitions.put(id, definition);
+        }
+
+        for (Map.Entry<String, ItemMenu> entry : loaded.entrySet()) {
+            Object parent = loadedDefinitions.get(entry.getKey()).get("parent");
+            if (parent != null && !loaded.containsKey(parent.toString())) {
+                warn("Menu " + entry.getKey() + " has unknown parent " + parent);
+            }
+            entry.getValue().setParent(parent != null ? loaded.get(parent.toString()) : null);
+        }
+        for (String link : links) {
+            if (!loaded.containsKey(link)) {
+                warn("Unknown menu " + link + " is opened by an item");
+            }
+        }
+
+        Map<String, ItemMenu> previous = new HashMap<>(menus);
+        menus.clear();
+        menus.putAll(loaded);
+        definitions.clear();
+        definitions.putAll(loadedDefinitions);
+        for (Map.Entry<String, ItemMenu> entry : previous.entrySet()) {
+            ItemMenu replacement = menus.get(entry.getKey());
+            if (replacement != entry.getValue()) {
+                for (MenuSession session : entry.getValue().getSessions()) {
+                    if (replacement != null) {
+                        entry.getValue().navigate(session.getPlayer(), replacement);
+                    } else {
+                        session.getPlayer().closeInventory();
+                    }
+                }
+                retired.add(entry.getValue());
+            }
+        }
+        if (!retired.isEmpty() && (destroyTask == null || destroyTask.isCancelled())) {
+            // Viewers that could not be moved in place are closed and reopened over the next ticks
+            destroyTask = Bukkit.getScheduler().runTaskTimer(plugin, this::destroyRetired, DESTROY_DELAY, DESTROY_DELAY);
+        }
+        return built;
+    }
+
+    /**
+     * Destroys the menus replaced or removed by a load that no player is viewing anymore. Menus still viewed are kept
+     * until the next run.
+     */
+    private void destroyRetired() {
+        retired.removeIf(menu -> {
+            if (!menu.getSessions().isEmpty()) {
+                return false;
+            }
+            menu.destroy();
+            return true;
+        });
+        if (retired.isEmpty()) {
+            destroyTask.cancel();
+            destroyTask = null;
+        }
+    }
+
+    private ItemMenu build(String id, ConfigurationSection section, List<String> links) {
+        int rows = section.getInt("rows", 6);
+        if (rows < 1 || rows > 6) {
+            warn("Menu " + id + " has " + rows + " rows, expected 1 to 6");
+            return null;
+        }
+        ItemMenu menu = new ItemMenu(color(section.getString("title", id)), ItemMenu.Size.fit(rows * 9), plugin);
+        menu.setShared(section.getBoolean("shared", false));
+
+        ConfigurationSection items = section.getConfigurationSection("items");
+        if (items != null) {
+            for (String key : items.getKeys(false)) {
+                String path = id + ".items." + key;
+                int[] slots = parseSlots(key, rows * 9);
+                if (slots == null) {
+                    warn("Invalid slots at " + path);
+                    continue;
+                }
+                MenuItem item = items.isConfigurationSection(key) ? buildItem(path, items.getConfigurationSection(key), links) : null;
+                if (item == null) {
+                    continue;
+                }
+                for (int slot : slots) {
+                    menu.setItem(slot, item);
+                }
+            }
+        }
+        if (section.isConfigurationSection("fill")) {
+            MenuItem fill = buildItem(id + ".fill", section.getConfigurationSection("fill"), links);
+            if (fill != null) {
+                menu.fillEmptySlots(fill);
+            }
+        }
+        return menu;
+    }
+
+    private MenuItem buildItem(String path, ConfigurationSection section, List<String> links) {
+        Material material = Material.matchMaterial(section.getString("material", ""));
+        if (material == null) {
+            warn("Unknown material at " + path);
+            return null;
+        }
+        ItemStack icon = new ItemStack(material, Math.max(1, section.getInt("amount", 1)));
+        List<String> lore = new ArrayList<>();
+        for (String line : section.getStringList("lore")) {
+            lore.add(color(line));
+        }
+
+        Consumer<ItemClickEvent> action = null;
+        String command = section.getString("action");
+        if (command != null && !command.trim().isEmpty()) {
+            String[] parts = command.trim().split(" ", 2);
+            String argument = parts.length > 1 ? parts[1].trim() : "";
+            BiConsumer<ItemClickEvent, String> handler = actions.get(parts[0].toLowerCase());
+            if (handler == null) {
+                warn("Unknown action " + parts[0] + " at " + path);
+            } else {
+                action = event -> handler.accept(event, argument);
+                if (parts[0].equalsIgnoreCase("open")) {
+                    links.add(argument);
+                }
+            }
+        }
+        ConfiguredMenuItem item = new ConfiguredMenuItem(color(section.getString("name", " ")), icon, lore, action);
+        item.getDressedIcon();
+        return item;
+    }
+
+    private static int[] parseSlots(String key, int size) {
+        List<Integer> slots = new ArrayList<>();
+        try {
+            for (String part : key.split(",")) {
+                String[] range = part.trim().split("-", 2);
+                int from = Integer.parseInt(range[0].trim());
+                int to = range.length > 1 ? Integer.parseInt(range[1].trim()) : from;
+                if (from < 0 || to >= size || from > to) {
+                    return null;
+                }
+                for (int slot = from; slot <= to; slot++) {
+                    slots.add(slot);
+                }
+            }
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        int[] array = new int[slots.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = slots.get(i);
+        }
+        return array;
+    }
+
+    private static Map<String, Object> toMap(ConfigurationSection section) {
+        Map<String, Object> map = new HashMap<>();
+        for (String key : section.getKeys(false)) {
+            map.put(key, section.isConfigurationSection(key) ? toMap(section.getConfigurationSection(key)) : section.get(key));
+        }
+        return map;
+    }
+
+    private static String color(String text) {
+        return ChatColor.translateAlternateColorCodes('&', text);
+    }
+
+    private void warn(String message) {
+        plugin.getLogger().warning("[" + file.getName() + "] " + message);
+    }
+
+}
@@ -33,6 +33,7 @@ public class ItemClickEvent {
     private boolean goBack = false;
     private boolean close = false;
     private boolean update = false;
+    private ItemMenu open = null;
 
     public ItemClickEvent(Player player, ClickType type) {
         this.player = player;
@@ -74,6 +75,7 @@ public class ItemClickEvent {
     public void setWillGoBack(boolean goBack) {
         this.goBack = goBack;
         if (goBack) {
+            open = null;
             close = false;
             update = false;
         }
@@ -96,6 +98,7 @@ public class ItemClickEvent {
     public void setWillClose(boolean close) {
         this.close = close;
         if (close) {
+            open = null;
             goBack = false;
             update = false;
         }
@@ -118,9 +121,33 @@ public class ItemClickEvent {
     public void setWillUpdate(boolean update) {
         this.update = update;
         if (update) {
+            open = null;
             goBack = false;
             close = false;
         }
     }
 
+    /**
+     * Gets the {@link ninja.amp.ampmenus.menus.ItemMenu} that will be opened in place of the current one.
+     *
+     * @return The {@link ninja.amp.ampmenus.menus.ItemMenu}, or null if no menu will be opened.
+     */
+    public ItemMenu getWillOpen() {
+        return open;
+    }
+
+    /**
+     * Sets the {@link ninja.amp.ampmenus.menus.ItemMenu} that will be opened in place of the current one.
+     *
+     * @param open The {@link ninja.amp.ampmenus.menus.ItemMenu}, or null to open no menu.
+     */
+    public void setWillOpen(ItemMenu open) {
+        this.open = open;
+        if (open != null) {
+            goBack = false;
+            close = false;
+            update = false;
+        }
+    }
+
 }
@@ -26,33 +26,26 @@ import java.util.List;
 
 /**
  * A {@link MenuItem} that will dynamically change it's {@link #getFinalIcon(Player)} output depending on
- * {@link #getValue(Player)}.
+ * {@link #getValue(Player)}. The dressed icons of both values are built once, see {@link StatefulMenuItem}.
  */
-public abstract class BooleanMenuItem extends MenuItem {
+public abstract class BooleanMenuItem extends StatefulMenuItem {
 
-    private final ItemStack trueIcon;
-    private final ItemStack falseIcon;
+    private static final int FALSE_STATE = 0;
+    private static final int TRUE_STATE = 1;
 
     public BooleanMenuItem(String displayName, String... lore) {
         this(displayName, new ItemStack(Materials.GREEN_WOOL), new ItemStack(Materials.RED_WOOL), lore);
     }
 
     public BooleanMenuItem(String displayName, ItemStack trueIcon, ItemStack falseIcon, String... lore) {
-        super(displayName, Materials.UNKNOWN_ITEM, lore);
-        this.trueIcon = trueIcon;
-        this.falseIcon = falseIcon;
+        super(displayName, new ItemStack[]{falseIcon, trueIcon}, lore);
     }
 
     public abstract boolean getValue(Player player);
 
     @Override
-    public ItemStack getFinalIcon(Player player) {
-        boolean value = getValue(player);
-        return setNameAndLore(
-                value ? getTrueIcon() : getFalseIcon(),
-                getDisplayName(value),
-                getLore(value)
-        );
+    public int getState(Player player) {
+        return getValue(player) ? TRUE_STATE : FALSE_STATE;
     }
 
     /**
@@ -75,11 +68,26 @@ public abstract class BooleanMenuItem extends MenuItem {
         return getLore();
     }
 
+    @Override
+    public String getDisplayName(int state) {
+        return getDisplayName(state == TRUE_STATE);
+    }
+
+    @Override
+    public List<String> getLore(int state) {
+        return getLore(state == TRUE_STATE);
+    }
+
+    @Override
+    public ItemStack getStateIcon(int state) {
+        return state == TRUE_STATE ? getTrueIcon() : getFalseIcon();
+    }
+
     public ItemStack getTrueIcon() {
-        return trueIcon;
+        return super.getStateIcon(TRUE_STATE);
     }
     public ItemStack getFalseIcon() {
-        return falseIcon;
+        return super.getStateIcon(FALSE_STATE);
     }
 
 }
@@ -0,0 +1,106 @@
+/*
+ * This file is part of AmpMenus.
+ *
+ * Copyright (c) 2014-2021 <https://github.com/Scarsz/AmpMenus/>
+ *
+ * AmpMenus is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * AmpMenus is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with AmpMenus.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ninja.amp.ampmenus.items;
+
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A {@link ninja.amp.ampmenus.items.StatefulMenuItem} whose states are the constants of an enum, such as a difficulty
+ * or a visibility setting.
+ *
+ * @param <E> The enum type.
+ */
+public abstract class EnumMenuItem<E extends Enum<E>> extends StatefulMenuItem {
+
+    private final E[] values;
+
+    /**
+     * Creates an {@link ninja.amp.ampmenus.items.EnumMenuItem}.
+     *
+     * @param displayName The display name shared by all constants.
+     * @param type        The enum type.
+     * @param icons       The icon of each constant. Every constant of the enum must have one.
+     * @param lore        The lore shared by all constants.
+     */
+    public EnumMenuItem(String displayName, Class<E> type, Map<E, ItemStack> icons, String... lore) {
+        super(displayName, toArray(type, icons), lore);
+        this.values = type.getEnumConstants();
+    }
+
+    private static <E extends Enum<E>> ItemStack[] toArray(Class<E> type, Map<E, ItemStack> icons) {
+        E[] values = type.getEnumConstants();
+        ItemStack[] array = new ItemStack[values.length];
+        for (E value : values) {
+            array[value.ordinal()] = icons.get(value);
+            if (array[value.ordinal()] == null) {
+                throw new IllegalArgumentException("No icon given for " + value);
+            }
+        }
+        return array;
+    }
+
+    /**
+     * Gets the value the MenuItem shows for a player.
+     *
+     * @param player The player.
+     * @return The value.
+     */
+    public abstract E getValue(Player player);
+
+    @Override
+    public int getState(Player player) {
+        return getValue(player).ordinal();
+    }
+
+    /**
+     * Functionally identical to {@link MenuItem#getDisplayName()} if not overridden. Override to give each value its
+     * own display name.
+     *
+     * @param value The value.
+     * @return The display name of the value.
+     */
+    public String getDisplayName(E value) {
+        return getDisplayName();
+    }
+
+    /**
+     * Functionally identical to {@link MenuItem#getLore()} if not overridden. Override to give each value its own lore.
+     *
+     * @param value The value.
+     * @return The lore of the value.
+     */
+    public List<String> getLore(E value) {
+        return getLore();
+    }
+
+    @Override
+    public String getDisplayName(int state) {
+        return getDisplayName(values[state]);
+    }
+
+    @Override
+    public List<String> getLore(int state) {
+        return getLore(values[state]);
+    }
+
+}
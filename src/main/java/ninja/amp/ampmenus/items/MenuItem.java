@@ -19,6 +19,7 @@
 package ninja.amp.ampmenus.items;
 
 import ninja.amp.ampmenus.events.ItemClickEvent;
+import ninja.amp.ampmenus.menus.RenderContext;
 import org.bukkit.Sound;
 import org.bukkit.entity.Player;
 import org.bukkit.event.inventory.ClickType;
@@ -34,14 +35,49 @@ import java.util.List;
 public class MenuItem {
 
     private static Sound buttonClickSound = Sound.UI_BUTTON_CLICK;
+    private static final ClassValue<Boolean> PLAYER_DEPENDENT = new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            try {
+                return !isFixedIcon(type.getMethod("getFinalIcon", Player.class).getDeclaringClass())
+                        || !isFixedIcon(type.getMethod("getFinalIcon", Player.class, RenderContext.class).getDeclaringClass());
+            } catch (NoSuchMethodException e) {
+                return true;
+            }
+        }
+
+        private boolean isFixedIcon(Class<?> declaringClass) {
+            return declaringClass == MenuItem.class || declaringClass == StaticMenuItem.class;
+        }
+    };
+    private static final ClassValue<Boolean> ICON_CACHEABLE = new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            if (StaticMenuItem.class.isAssignableFrom(type)) {
+                return true;
+            }
+            try {
+                return type.getMethod("getDisplayName").getDeclaringClass() == MenuItem.class
+                        && type.getMethod("getIcon").getDeclaringClass() == MenuItem.class
+                        && type.getMethod("getLore").getDeclaringClass() == MenuItem.class;
+            } catch (NoSuchMethodException e) {
+                return false;
+            }
+        }
+    };
 
     public static void setButtonClickSound(Sound buttonClickSound) {
         MenuItem.buttonClickSound = buttonClickSound;
     }
 
-    private final String displayName;
-    private final ItemStack icon;
-    private final List<String> lore;
+    private String displayName;
+    private ItemStack icon;
+    private List<String> lore;
+    private ItemStack dressedIcon;
+    private int refreshInterval;
+    private int clickCooldown;
+    private int cacheTtl;
+    volatile int cacheGeneration;
 
     public MenuItem(String displayName, ItemStack icon, String... lore) {
         this.displayName = displayName;
@@ -64,6 +100,16 @@ public class MenuItem {
         return displayName;
     }
 
+    /**
+     * Sets the display name of the MenuItem.
+     *
+     * @param displayName The display name.
+     */
+    public void setDisplayName(String displayName) {
+        this.displayName = displayName;
+        invalidateIcon();
+    }
+
     /**
      * Gets the icon of the MenuItem.
      *
@@ -73,6 +119,16 @@ public class MenuItem {
         return icon;
     }
 
+    /**
+     * Sets the icon of the MenuItem.
+     *
+     * @param icon The icon.
+     */
+    public void setIcon(ItemStack icon) {
+        this.icon = icon;
+        invalidateIcon();
+    }
+
     /**
      * Gets the lore of the MenuItem.
      *
@@ -82,6 +138,103 @@ public class MenuItem {
         return lore;
     }
 
+    /**
+     * Sets the lore of the MenuItem.
+     *
+     * @param lore The lore.
+     */
+    public void setLore(List<String> lore) {
+        this.lore = lore != null && lore.size() > 0 ? lore : null;
+        invalidateIcon();
+    }
+
+    /**
+     * Gets the icon dressed with the display name and lore of the MenuItem, which must not be modified. The dressed icon
+     * is built once and reused until {@link #invalidateIcon()} is called, unless the MenuItem overrides
+     * {@link #getDisplayName()}, {@link #getIcon()} or {@link #getLore()}; such MenuItems may return changing values, so
+     * their icon is dressed every time. A {@link ninja.amp.ampmenus.items.StaticMenuItem} is always reused.
+     *
+     * @return The dressed icon.
+     */
+    public ItemStack getDressedIcon() {
+        if (!ICON_CACHEABLE.get(getClass())) {
+            return setNameAndLore(getIcon().clone(), getDisplayName(), getLore());
+        }
+        if (dressedIcon == null) {
+            dressedIcon = setNameAndLore(getIcon().clone(), getDisplayName(), getLore());
+        }
+        return dressedIcon;
+    }
+
+    /**
+     * Discards the cached dressed icon of the MenuItem, along with the icons kept for it by the
+     * {@link ninja.amp.ampmenus.items.RenderCache}. Call this whenever the display name, icon or lore changes without
+     * going through their setters.
+     */
+    public void invalidateIcon() {
+        dressedIcon = null;
+        cacheGeneration++;
+    }
+
+    /**
+     * Gets the interval at which the MenuItem is re-rendered for the viewers of its menus.
+     *
+     * @return The interval in ticks, or 0 if the MenuItem is not refreshed.
+     */
+    public int getRefreshInterval() {
+        return refreshInterval;
+    }
+
+    /**
+     * Sets the interval at which the MenuItem is re-rendered for the viewers of its menus. Only the slots holding the
+     * MenuItem are updated. Set this before the menus holding the MenuItem are opened.
+     *
+     * @param refreshInterval The interval in ticks, or 0 to stop refreshing the MenuItem.
+     */
+    public void setRefreshInterval(int refreshInterval) {
+        this.refreshInterval = refreshInterval;
+    }
+
+    /**
+     * Gets the time a player has to wait between two clicks on the MenuItem.
+     *
+     * @return The cooldown in ticks, or 0 if the MenuItem has no cooldown.
+     */
+    public int getClickCooldown() {
+        return clickCooldown;
+    }
+
+    /**
+     * Sets the time a player has to wait between two clicks on the MenuItem. Clicks made during the cooldown are ignored.
+     *
+     * @param clickCooldown The cooldown in ticks, or 0 to remove the cooldown.
+     */
+    public void setClickCooldown(int clickCooldown) {
+        this.clickCooldown = clickCooldown;
+    }
+
+    /**
+     * Gets the time the icon rendered for a player is reused by the {@link ninja.amp.ampmenus.items.RenderCache}.
+     *
+     * @return The time to live in ticks, or 0 if the icon is rendered every time.
+     */
+    public int getCacheTtl() {
+        return cacheTtl;
+    }
+
+    /**
+     * Sets the time the icon rendered for a player is reused by the {@link ninja.amp.ampmenus.items.RenderCache}
+     * instead of calling {@link #getFinalIcon(Player, RenderContext)} again. Useful for MenuItems whose icon comes
+     * from slow sources; call {@link #invalidateIcon()} or {@link ninja.amp.ampmenus.items.RenderCache#invalidate}
+     * when the icon is known to have changed before its time is up.
+     *
+     * @param cacheTtl The time to live in ticks, or 0 to render the icon every time.
+     */
+    public void setCacheTtl(int cacheTtl) {
+        this.cacheTtl = cacheTtl;
+        cacheGeneration++;
+    }
+
     /**
      * Gets the ItemStack to be shown to the player.
      *
@@ -89,7 +242,32 @@ public class MenuItem {
      * @return The final icon.
      */
     public ItemStack getFinalIcon(Player player) {
-        return setNameAndLore(getIcon().clone(), getDisplayName(), getLore());
+        return getDressedIcon().clone();
+    }
+
+    /**
+     * Gets the ItemStack to be shown to the player during a render of an {@link ninja.amp.ampmenus.menus.ItemMenu}.
+     * Override to share values between the slots of a render through the {@link RenderContext}.
+     *
+     * @param player  The player.
+     * @param context The {@link RenderContext} of the render.
+     * @return The final icon.
+     */
+    public ItemStack getFinalIcon(Player player, RenderContext context) {
+        return getFinalIcon(player);
+    }
+
+    /**
+     * Checks if the icon of the MenuItem can differ between players. Icons that look the same for every player are
+     * rendered once when a menu is opened for many players at once, see
+     * {@link ninja.amp.ampmenus.menus.ItemMenu#open(java.util.Collection, int)}. By default, a MenuItem is player
+     * dependent if it overrides {@link #getFinalIcon(Player)} or {@link #getFinalIcon(Player, RenderContext)};
+     * override this if such a MenuItem still shows the same icon to everyone.
+     *
+     * @return True if the icon depends on the player, else false.
+     */
+    public boolean isPlayerDependent() {
+        return PLAYER_DEPENDENT.get(getClass());
     }
 
     /**
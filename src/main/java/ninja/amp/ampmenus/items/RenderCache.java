@@ -0,0 +1,249 @@
+/*
+ * This file is part of AmpMenus.
+ *
+ * Copyright (c) 2014-2021 <https://github.com/Scarsz/AmpMenus/>
+ *
+ * AmpMenus is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * AmpMenus is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with AmpMenus.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ninja.amp.ampmenus.items;
+
+import ninja.amp.ampmenus.MenuMetrics;
+import ninja.amp.ampmenus.menus.RenderContext;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Keeps the icons rendered for players by {@link ninja.amp.ampmenus.items.MenuItem}s that have a cache time to live,
+ * see {@link ninja.amp.ampmenus.items.MenuItem#setCacheTtl(int)}. An icon is reused for the same MenuItem and player
+ * until its time is up or it is invalidated. The least recently used icons are evicted once the capacity is reached.
+ */
+public class RenderCache {
+
+    private static final RenderCache INSTANCE = new RenderCache();
+    private static final long NANOS_PER_TICK = 50_000_000L;
+
+    private final Map<Key, CachedIcon> icons = new LinkedHashMap<Key, CachedIcon>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, CachedIcon> eldest) {
+            if (size() > capacity) {
+                evictions++;
+                return true;
+            }
+            return false;
+        }
+    };
+    private int capacity = 4096;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    private RenderCache() {
+    }
+
+    /**
+     * Gets the {@link ninja.amp.ampmenus.items.RenderCache} instance.
+     *
+     * @return The {@link ninja.amp.ampmenus.items.RenderCache} instance.
+     */
+    public static RenderCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Gets the maximum amount of icons kept in memory, across all MenuItems and players.
+     *
+     * @return The capacity.
+     */
+    public synchronized int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Sets the maximum amount of icons kept in memory, across all MenuItems and players.
+     *
+     * @param capacity The capacity.
+     */
+    public synchronized void setCapacity(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be at least 1");
+        }
+        this.capacity = capacity;
+        Iterator<Key> iterator = icons.keySet().iterator();
+        while (icons.size() > capacity) {
+            iterator.next();
+            iterator.remove();
+            evictions++;
+        }
+    }
+
+    /**
+     * Gets the icon of a {@link ninja.amp.ampmenus.items.MenuItem} for a player, reusing the icon rendered last time if
+     * the MenuItem has a cache time to live that is not up yet. The icon must not be modified.
+     *
+     * @param item    The {@link ninja.amp.ampmenus.items.MenuItem}.
+     * @param player  The player.
+     * @param context The {@link ninja.amp.ampmenus.menus.RenderContext} of the render, or null outside of a render.
+     * @return The final icon.
+     */
+    public ItemStack getFinalIcon(MenuItem item, Player player, RenderContext context) {
+        int ttl = item.getCacheTtl();
+        if (ttl <= 0) {
+            return MenuMetrics.getInstance().getFinalIcon(item, player, context);
+        }
+        Key key = new Key(item, player.getUniqueId());
+        int generation = item.cacheGeneration;
+        long now = System.nanoTime();
+        synchronized (this) {
+            CachedIcon entry = icons.get(key);
+            if (entry != null && entry.generation == generation && now - entry.expiresAt < 0) {
+                hits++;
+                return entry.icon;
+            }
+            misses++;
+        }
+        ItemStack icon = MenuMetrics.getInstance().getFinalIcon(item, player, context);
+        if (icon != null) {
+            synchronized (this) {
+                icons.put(key, new CachedIcon(icon, generation, now + ttl * NANOS_PER_TICK));
+            }
+        }
+        return icon;
+    }
+
+    /**
+     * Discards the icon kept for a {@link ninja.amp.ampmenus.items.MenuItem} and a player.
+     *
+     * @param item   The {@link ninja.amp.ampmenus.items.MenuItem}.
+     * @param player The player.
+     */
+    public synchronized void invalidate(MenuItem item, Player player) {
+        icons.remove(new Key(item, player.getUniqueId()));
+    }
+
+    /**
+     * Discards the icons kept for a {@link ninja.amp.ampmenus.items.MenuItem}, for all players.
+     *
+     * @param item The {@link ninja.amp.ampmenus.items.MenuItem}.
+     */
+    public void invalidate(MenuItem item) {
+        item.cacheGeneration++;
+    }
+
+    /**
+     * Discards the icons kept for a player, for all MenuItems.
+     *
+     * @param uuid The UUID of the player.
+     */
+    public synchronized void invalidate(UUID uuid) {
+        icons.keySet().removeIf(key -> key.uuid.equals(uuid));
+    }
+
+    /**
+     * Gets the amount of icons that were reused.
+     *
+     * @return The amount of hits.
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Gets the amount of icons that had to be rendered because none was kept or it had expired.
+     *
+     * @return The amount of misses.
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Gets the amount of icons discarded to stay within the capacity.
+     *
+     * @return The amount of evictions.
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Resets the hit, miss and eviction counters.
+     */
+    public synchronized void resetStats() {
+        hits = 0;
+        misses = 0;
+        evictions = 0;
+    }
+
+    /**
+     * Gets the amount of icons kept in memory.
+     *
+     * @return The amount of icons.
+     */
+    public synchronized int size() {
+        return icons.size();
+    }
+
+    /**
+     * Removes all icons kept in memory.
+     */
+    public synchronized void clear() {
+        icons.clear();
+    }
+
+    private static class Key {
+
+        private final MenuItem item;
+        private final UUID uuid;
+
+        private Key(MenuItem item, UUID uuid) {
+            this.item = item;
+            this.uuid = uuid;
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            if (!(object instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) object;
+            return item == key.item && uuid.equals(key.uuid);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(item) + uuid.hashCode();
+        }
+
+    }
+
+    private static class CachedIcon {
+
+        private final ItemStack icon;
+        private final int generation;
+        private final long expiresAt;
+
+        private CachedIcon(ItemStack icon, int generation, long expiresAt) {
+            this.icon = icon;
+            this.generation = generation;
+            this.expiresAt = expiresAt;
+        }
+
+    }
+
+}
@@ -0,0 +1,201 @@
+/*
+ * This file is part of AmpMenus.
+ *
+ * Copyright (c) 2014-2021 <https://github.com/Scarsz/AmpMenus/>
+ *
+ * AmpMenus is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * AmpMenus is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with AmpMenus.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ninja.amp.ampmenus.items;
+
+import org.bukkit.Bukkit;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.plugin.IllegalPluginAccessException;
+import org.bukkit.plugin.Plugin;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Resolves skull items for {@link ninja.amp.ampmenus.items.SkullMenuItem}s off the main thread and keeps the most
+ * recently used ones in memory. Concurrent requests for the same skull share a single resolution, and skulls that
+ * could not be resolved are not looked up again for a short while.
+ */
+public class SkullCache {
+
+    private static final SkullCache INSTANCE = new SkullCache();
+
+    private static final long FAILURE_TTL = TimeUnit.SECONDS.toNanos(30);
+
+    private final ThreadPoolExecutor executor = createExecutor();
+    private final Map<Object, CompletableFuture<ItemStack>> pending = new ConcurrentHashMap<>();
+    private final Map<Object, Long> failures = new HashMap<>();
+    private final Map<Object, ItemStack> skulls = new LinkedHashMap<Object, ItemStack>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Object, ItemStack> eldest) {
+            return size() > capacity;
+        }
+    };
+    private int capacity = 512;
+
+    private SkullCache() {
+    }
+
+    private static ThreadPoolExecutor createExecutor() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(2, 2, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "AmpMenus Skull Resolver");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Gets the {@link ninja.amp.ampmenus.items.SkullCache} instance.
+     *
+     * @return The {@link ninja.amp.ampmenus.items.SkullCache} instance.
+     */
+    public static SkullCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Gets the maximum amount of skulls kept in memory.
+     *
+     * @return The capacity.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Sets the maximum amount of skulls kept in memory. Must be called from the main thread.
+     *
+     * @param capacity The capacity.
+     */
+    public void setCapacity(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be at least 1");
+        }
+        this.capacity = capacity;
+        while (skulls.size() > capacity) {
+            skulls.remove(skulls.keySet().iterator().next());
+        }
+    }
+
+    /**
+     * Gets a resolved skull. Must be called from the main thread.
+     *
+     * @param key The UUID or texture id of the skull.
+     * @return The skull, or null if it has not been resolved yet.
+     */
+    public ItemStack get(Object key) {
+        return skulls.get(key);
+    }
+
+    /**
+     * Resolves a skull off the main thread. Must be called from the main thread; the returned future is completed on
+     * the main thread, with null if the skull could not be resolved. A skull that could not be resolved completes with
+     * null right away for 30 seconds. If the plugin is disabled before the skull is resolved, the future is completed
+     * on the resolving thread.
+     *
+     * @param key    The UUID or texture id of the skull.
+     * @param loader Creates the skull, called off the main thread.
+     * @param plugin The plugin used to return to the main thread.
+     * @return The future skull.
+     */
+    public CompletableFuture<ItemStack> resolve(Object key, Supplier<ItemStack> loader, Plugin plugin) {
+        ItemStack skull = skulls.get(key);
+        if (skull != null) {
+            return CompletableFuture.completedFuture(skull);
+        }
+        Long failedAt = failures.get(key);
+        if (failedAt != null) {
+            if (System.nanoTime() - failedAt < FAILURE_TTL) {
+                return CompletableFuture.completedFuture(null);
+            }
+            failures.remove(key);
+        }
+        CompletableFuture<ItemStack> future = pending.get(key);
+        if (future == null) {
+            CompletableFuture<ItemStack> resolution = new CompletableFuture<>();
+            pending.put(key, resolution);
+            executor.execute(() -> {
+                ItemStack resolved;
+                try {
+                    resolved = loader.get();
+                } catch (Exception e) {
+                    resolved = null;
+                }
+                ItemStack result = resolved;
+                try {
+                    Bukkit.getScheduler().runTask(plugin, () -> {
+                        pending.remove(key);
+                        if (result != null) {
+                            skulls.put(key, result);
+                        } else {
+                            long now = System.nanoTime();
+                            if (failures.size() >= capacity) {
+                                failures.values().removeIf(time -> now - time >= FAILURE_TTL);
+                            }
+                            failures.put(key, now);
+                        }
+                        resolution.complete(result);
+                    });
+                } catch (IllegalPluginAccessException e) {
+                    pending.remove(key);
+                    resolution.complete(null);
+                }
+            });
+            future = resolution;
+        }
+        return future;
+    }
+
+    /**
+     * Gets a skull, resolving it on the calling thread if it has not been resolved yet. This blocks until the skull is
+     * resolved, so prefer {@link #resolve(Object, Supplier, Plugin)}. Must be called from the main thread.
+     *
+     * @param key    The UUID or texture id of the skull.
+     * @param loader Creates the skull.
+     * @return The skull, or null if it could not be resolved.
+     */
+    public ItemStack getNow(Object key, Supplier<ItemStack> loader) {
+        ItemStack skull = skulls.get(key);
+        if (skull == null) {
+            skull = loader.get();
+            if (skull != null) {
+                skulls.put(key, skull);
+            }
+        }
+        return skull;
+    }
+
+    /**
+     * Removes all skulls kept in memory, along with the skulls that could not be resolved. Must be called from the main
+     * thread.
+     */
+    public void clear() {
+        skulls.clear();
+        failures.clear();
+    }
+
+}
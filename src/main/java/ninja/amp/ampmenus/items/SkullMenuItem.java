@@ -19,18 +19,34 @@
 package ninja.amp.ampmenus.items;
 
 import me.scarsz.mojang.Head;
+import ninja.amp.ampmenus.menus.ItemMenu;
+import ninja.amp.ampmenus.menus.RenderContext;
 import org.bukkit.OfflinePlayer;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.plugin.java.JavaPlugin;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.UUID;
 
 /**
- * A {@link MenuItem} that displays a player skull.
+ * A {@link MenuItem} that displays a player skull. Skulls are resolved off the main thread through the
+ * {@link SkullCache}; a plain skull is shown until the skull is resolved, after which only its slot is updated when
+ * rendered within an {@link ItemMenu}, or the next render shows it otherwise.
  */
 public class SkullMenuItem extends MenuItem {
 
+    private static final int DRESSED_CAPACITY = 64;
+
     private SkullTarget target;
+    private final Map<Object, ItemStack> dressed = new LinkedHashMap<Object, ItemStack>(16, 0.75F, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Object, ItemStack> eldest) {
+            return size() > DRESSED_CAPACITY;
+        }
+    };
 
     public SkullMenuItem(String displayName, String... lore) {
         super(displayName, Head.getPlayerSkullItem(), lore);
@@ -50,15 +66,74 @@ public class SkullMenuItem extends MenuItem {
 
     @Override
     public ItemStack getFinalIcon(Player player) {
-        ItemStack item;
-        if (target != null) {
-            item = target.getItem();
-        } else {
-            item = Head.create(player);
+        Object key = target != null ? target.getKey() : player.getUniqueId();
+        ItemStack skull = SkullCache.getInstance().get(key);
+        if (skull != null) {
+            return dress(key, skull);
+        }
+
+        Plugin plugin = getProvidingPlugin();
+        if (plugin != null) {
+            SkullCache.getInstance().resolve(key, () -> createSkull(player), plugin);
+        }
+        return getDressedIcon().clone();
+    }
+
+    @Override
+    public ItemStack getFinalIcon(Player player, RenderContext context) {
+        if (context == null) {
+            return getFinalIcon(player);
+        }
+
+        Object key = target != null ? target.getKey() : player.getUniqueId();
+        ItemStack skull = SkullCache.getInstance().get(key);
+        if (skull != null) {
+            return dress(key, skull);
+        }
+
+        ItemMenu menu = context.getMenu();
+        int slot = context.getSlot();
+        SkullCache.getInstance().resolve(key, () -> createSkull(player), menu.getPlugin()).thenAccept(resolved -> {
+            if (resolved != null && player.isOnline()) {
+                menu.updateSlot(player, slot);
+            }
+        });
+        return getDressedIcon().clone();
+    }
+
+    @Override
+    public void invalidateIcon() {
+        super.invalidateIcon();
+        if (dressed != null) {
+            dressed.clear();
+        }
+    }
+
+    private ItemStack createSkull(Player player) {
+        return target != null ? target.getItem() : Head.create(player);
+    }
+
+    private ItemStack dress(Object key, ItemStack skull) {
+        ItemStack icon = dressed.get(key);
+        if (icon == null) {
+            icon = setNameAndLore(skull.clone(), getDisplayName(), getLore());
+            dressed.put(key, icon);
         }
+        return icon.clone();
+    }
 
-        setNameAndLore(item, getDisplayName(), getLore());
-        return item;
+    /**
+     * Gets the plugin this copy of AmpMenus is part of, used to return to the main thread when a skull is resolved
+     * outside of a render.
+     *
+     * @return The plugin, or null if AmpMenus was not loaded by a plugin.
+     */
+    private static Plugin getProvidingPlugin() {
+        try {
+            return JavaPlugin.getProvidingPlugin(SkullMenuItem.class);
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            return null;
+        }
     }
 
     public SkullTarget getTarget() {
@@ -71,6 +146,8 @@ public class SkullMenuItem extends MenuItem {
 
     private interface SkullTarget {
 
+        Object getKey();
+
         ItemStack getItem();
 
         class SkullTexture implements SkullTarget {
@@ -81,6 +158,11 @@ public class SkullMenuItem extends MenuItem {
                 this.textureId = textureId;
             }
 
+            @Override
+            public Object getKey() {
+                return textureId;
+            }
+
             @Override
             public ItemStack getItem() {
                 return Head.createFromTexture(textureId);
@@ -96,6 +178,11 @@ public class SkullMenuItem extends MenuItem {
                 this.uuid = uuid;
             }
 
+            @Override
+            public Object getKey() {
+                return uuid;
+            }
+
             @Override
             public ItemStack getItem() {
                 return Head.create(uuid);
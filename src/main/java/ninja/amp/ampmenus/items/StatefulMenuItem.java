@@ -0,0 +1,160 @@
+/*
+ * This file is part of AmpMenus.
+ *
+ * Copyright (c) 2014-2021 <https://github.com/Scarsz/AmpMenus/>
+ *
+ * AmpMenus is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * AmpMenus is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with AmpMenus.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ninja.amp.ampmenus.items;
+
+import ninja.amp.ampmenus.Materials;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A {@link ninja.amp.ampmenus.items.MenuItem} with a fixed number of states, each shown with its own icon, display name
+ * and lore. The dressed icon of every state is built once, in the constructor, so rendering the item only looks up the
+ * player's state and copies the icon.
+ *
+ * <p>Subclasses that override the methods giving the display name, lore or icon of a state, such as
+ * {@link #getDisplayName(int)} or {@link ninja.amp.ampmenus.items.BooleanMenuItem#getLore(boolean)}, may return
+ * changing values, so their icons are dressed on every render instead.</p>
+ */
+public abstract class StatefulMenuItem extends MenuItem {
+
+    private static final Set<String> DRESSING_METHODS = new HashSet<>(Arrays.asList(
+            "getDisplayName", "getLore", "getIcon", "getStateIcon", "getTrueIcon", "getFalseIcon"));
+    private static final Set<Class<?>> FIXED_DRESSING = new HashSet<>(Arrays.asList(
+            MenuItem.class, StatefulMenuItem.class, BooleanMenuItem.class, EnumMenuItem.class, ToggleableMenuItem.class, TristateMenuItem.class));
+    private static final ClassValue<Boolean> DYNAMIC = new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            for (Method method : type.getMethods()) {
+                if (DRESSING_METHODS.contains(method.getName()) && !FIXED_DRESSING.contains(method.getDeclaringClass())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    };
+
+    private final ItemStack[] stateIcons;
+    private final ItemStack[] dressedIcons;
+
+    /**
+     * Creates a {@link ninja.amp.ampmenus.items.StatefulMenuItem}, dressing the icon of every state.
+     *
+     * @param displayName The display name shared by all states.
+     * @param stateIcons  The icon of each state, by state.
+     * @param lore        The lore shared by all states.
+     */
+    public StatefulMenuItem(String displayName, ItemStack[] stateIcons, String... lore) {
+        super(displayName, Materials.UNKNOWN_ITEM, lore);
+        this.stateIcons = stateIcons.clone();
+        this.dressedIcons = new ItemStack[stateIcons.length];
+        List<String> lines = lore != null && lore.length > 0 ? Arrays.asList(lore) : null;
+        for (int i = 0; i < stateIcons.length; i++) {
+            dressedIcons[i] = setNameAndLore(stateIcons[i].clone(), displayName, lines);
+        }
+    }
+
+    /**
+     * Gets the state the MenuItem is in for a player.
+     *
+     * @param player The player.
+     * @return The state, from 0 to {@link #getStateCount()} exclusive.
+     */
+    public abstract int getState(Player player);
+
+    /**
+     * Gets the number of states of the MenuItem.
+     *
+     * @return The number of states.
+     */
+    public int getStateCount() {
+        return stateIcons.length;
+    }
+
+    /**
+     * Gets the icon of a state, without its display name and lore. The icon must not be modified.
+     *
+     * @param state The state.
+     * @return The icon.
+     */
+    public ItemStack getStateIcon(int state) {
+        return stateIcons[state];
+    }
+
+    /**
+     * Functionally identical to {@link MenuItem#getDisplayName()} if not overridden. Override to give each state its
+     * own display name.
+     *
+     * @param state The state.
+     * @return The display name of the state.
+     */
+    public String getDisplayName(int state) {
+        return getDisplayName();
+    }
+
+    /**
+     * Functionally identical to {@link MenuItem#getLore()} if not overridden. Override to give each state its own lore.
+     *
+     * @param state The state.
+     * @return The lore of the state.
+     */
+    public List<String> getLore(int state) {
+        return getLore();
+    }
+
+    /**
+     * Gets the icon of a state dressed with the display name and lore of the state. Unless the subclass overrides the
+     * methods giving them, the icon is the one built in the constructor, which is shared by every viewer and must not
+     * be modified.
+     *
+     * @param state The state.
+     * @return The dressed icon.
+     */
+    public ItemStack getDressedIcon(int state) {
+        if (DYNAMIC.get(getClass())) {
+            return setNameAndLore(getStateIcon(state).clone(), getDisplayName(state), getLore(state));
+        }
+        return dressedIcons[state];
+    }
+
+    /**
+     * Rebuilds the dressed icons of all states, for when the display name or lore was changed through their setters.
+     */
+    @Override
+    public void invalidateIcon() {
+        super.invalidateIcon();
+        if (dressedIcons != null) {
+            for (int i = 0; i < dressedIcons.length; i++) {
+                dressedIcons[i] = setNameAndLore(stateIcons[i].clone(), getDisplayName(), getLore());
+            }
+        }
+    }
+
+    @Override
+    public ItemStack getFinalIcon(Player player) {
+        int state = getState(player);
+        return DYNAMIC.get(getClass()) ? getDressedIcon(state) : dressedIcons[state].clone();
+    }
+
+}
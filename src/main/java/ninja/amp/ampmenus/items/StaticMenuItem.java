@@ -28,12 +28,11 @@ public class StaticMenuItem extends MenuItem {
 
     public StaticMenuItem(String displayName, ItemStack icon, String... lore) {
         super(displayName, icon, lore);
-        setNameAndLore(getIcon(), getDisplayName(), getLore());
     }
 
     @Override
     public ItemStack getFinalIcon(Player player) {
-        return getIcon();
+        return getDressedIcon();
     }
 
 }
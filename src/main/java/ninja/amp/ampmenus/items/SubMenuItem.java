@@ -20,8 +20,6 @@ package ninja.amp.ampmenus.items;
 
 import ninja.amp.ampmenus.events.ItemClickEvent;
 import ninja.amp.ampmenus.menus.ItemMenu;
-import org.bukkit.Bukkit;
-import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.plugin.java.JavaPlugin;
 
@@ -41,14 +39,25 @@ public class SubMenuItem extends MenuItem {
 
     @Override
     public void onItemClick(ItemClickEvent event) {
-        event.setWillClose(true);
-        final String playerName = event.getPlayer().getName();
-        Bukkit.getScheduler().scheduleSyncDelayedTask(plugin, () -> {
-            Player p = Bukkit.getPlayerExact(playerName);
-            if (p != null) {
-                menu.open(p);
-            }
-        }, 3);
+        event.setWillOpen(menu);
+    }
+
+    /**
+     * Gets the sub {@link ninja.amp.ampmenus.menus.ItemMenu} opened by the {@link ninja.amp.ampmenus.items.SubMenuItem}.
+     *
+     * @return The sub {@link ninja.amp.ampmenus.menus.ItemMenu}.
+     */
+    public ItemMenu getMenu() {
+        return menu;
+    }
+
+    /**
+     * Gets the {@link org.bukkit.plugin.java.JavaPlugin} that created the {@link ninja.amp.ampmenus.items.SubMenuItem}.
+     *
+     * @return The {@link org.bukkit.plugin.java.JavaPlugin} instance.
+     */
+    public JavaPlugin getPlugin() {
+        return plugin;
     }
 
 }
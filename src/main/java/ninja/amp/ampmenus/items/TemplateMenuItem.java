@@ -0,0 +1,170 @@
+/*
+ * This file is part of AmpMenus.
+ *
+ * Copyright (c) 2014-2021 <https://github.com/Scarsz/AmpMenus/>
+ *
+ * AmpMenus is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * AmpMenus is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with AmpMenus.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ninja.amp.ampmenus.items;
+
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * A {@link ninja.amp.ampmenus.items.MenuItem} whose display name and lore are {@link ninja.amp.ampmenus.items.TextTemplate}s
+ * filled with values for the player viewing it. Each placeholder is resolved once per render, and the dressed icon is
+ * reused as long as the text of all placeholder values is unchanged. Setting the display name or lore compiles the new
+ * templates.
+ */
+public class TemplateMenuItem extends MenuItem {
+
+    private static final int CACHE_SIZE = 64;
+
+    private final int wrapWidth;
+    private volatile TextTemplate nameTemplate;
+    private volatile List<TextTemplate> loreTemplates;
+    private final BiFunction<Player, String, ?> values;
+    private final Map<List<String>, ItemStack> icons = new LinkedHashMap<List<String>, ItemStack>(16, 0.75F, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<List<String>, ItemStack> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    /**
+     * Creates a {@link ninja.amp.ampmenus.items.TemplateMenuItem}.
+     *
+     * @param displayName The display name template.
+     * @param icon        The icon.
+     * @param values      Gets the value of a placeholder by player and name.
+     * @param lore        The lore templates, one per line.
+     */
+    public TemplateMenuItem(String displayName, ItemStack icon, BiFunction<Player, String, ?> values, String... lore) {
+        this(displayName, icon, values, 0, lore);
+    }
+
+    /**
+     * Creates a {@link ninja.amp.ampmenus.items.TemplateMenuItem} with word-wrapped lore.
+     *
+     * @param displayName The display name template.
+     * @param icon        The icon.
+     * @param values      Gets the value of a placeholder by player and name.
+     * @param wrapWidth   The maximum amount of visible characters per lore line, or 0 to not wrap lines.
+     * @param lore        The lore templates, one per line.
+     */
+    public TemplateMenuItem(String displayName, ItemStack icon, BiFunction<Player, String, ?> values, int wrapWidth, String... lore) {
+        super(displayName, icon, lore);
+        this.wrapWidth = wrapWidth;
+        this.nameTemplate = TextTemplate.compile(displayName);
+        this.loreTemplates = compileLore(Arrays.asList(lore), wrapWidth);
+        this.values = values;
+    }
+
+    /**
+     * Gets the display name template of the {@link ninja.amp.ampmenus.items.TemplateMenuItem}.
+     *
+     * @return The display name {@link ninja.amp.ampmenus.items.TextTemplate}.
+     */
+    public TextTemplate getNameTemplate() {
+        return nameTemplate;
+    }
+
+    /**
+     * Gets the lore templates of the {@link ninja.amp.ampmenus.items.TemplateMenuItem}.
+     *
+     * @return The unmodifiable lore {@link ninja.amp.ampmenus.items.TextTemplate}s, one per line.
+     */
+    public List<TextTemplate> getLoreTemplates() {
+        return loreTemplates;
+    }
+
+    @Override
+    public void setDisplayName(String displayName) {
+        nameTemplate = TextTemplate.compile(displayName);
+        super.setDisplayName(displayName);
+    }
+
+    @Override
+    public void setLore(List<String> lore) {
+        loreTemplates = compileLore(lore != null ? lore : Collections.emptyList(), wrapWidth);
+        super.setLore(lore);
+    }
+
+    @Override
+    public ItemStack getFinalIcon(Player player) {
+        TextTemplate nameTemplate = this.nameTemplate;
+        List<TextTemplate> loreTemplates = this.loreTemplates;
+        Map<String, String> resolved = new HashMap<>();
+        Function<String, String> lookup = name -> resolved.computeIfAbsent(name, key -> {
+            Object value = values.apply(player, key);
+            return value != null ? value.toString() : "";
+        });
+        List<String> key = new ArrayList<>();
+        collect(nameTemplate, lookup, key);
+        for (TextTemplate line : loreTemplates) {
+            collect(line, lookup, key);
+        }
+
+        ItemStack icon;
+        synchronized (icons) {
+            icon = icons.get(key);
+        }
+        if (icon == null) {
+            List<String> lore = new ArrayList<>();
+            for (TextTemplate line : loreTemplates) {
+                lore.addAll(line.fillLines(lookup));
+            }
+            icon = setNameAndLore(getIcon().clone(), nameTemplate.fill(lookup), lore.isEmpty() ? null : lore);
+            synchronized (icons) {
+                icons.put(key, icon);
+            }
+        }
+        return icon.clone();
+    }
+
+    @Override
+    public void invalidateIcon() {
+        super.invalidateIcon();
+        if (icons != null) {
+            synchronized (icons) {
+                icons.clear();
+            }
+        }
+    }
+
+    private static List<TextTemplate> compileLore(List<String> lore, int wrapWidth) {
+        List<TextTemplate> templates = new ArrayList<>();
+        for (String line : lore) {
+            templates.add(TextTemplate.compile(line, wrapWidth));
+        }
+        return Collections.unmodifiableList(templates);
+    }
+
+    private static void collect(TextTemplate template, Function<String, String> lookup, List<String> key) {
+        for (String placeholder : template.getPlaceholders()) {
+            key.add(lookup.apply(placeholder));
+        }
+    }
+
+}
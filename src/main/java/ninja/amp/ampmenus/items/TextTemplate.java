@@ -0,0 +1,242 @@
+/*
+ * This file is part of AmpMenus.
+ *
+ * Copyright (c) 2014-2021 <https://github.com/Scarsz/AmpMenus/>
+ *
+ * AmpMenus is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * AmpMenus is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with AmpMenus.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ninja.amp.ampmenus.items;
+
+import org.bukkit.ChatColor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * A display name or lore line with {@code {placeholder}} slots. The text is parsed once into literal and placeholder
+ * segments, and filling it only joins the segments with the placeholder values. Recently filled texts are remembered
+ * by their values, so filling a template again with unchanged values returns the same String without building it.
+ */
+public class TextTemplate {
+
+    private static final int CACHE_SIZE = 128;
+
+    private final String text;
+    private final String[] literals;
+    private final String[] placeholders;
+    private final List<String> placeholderList;
+    private final int wrapWidth;
+    private final Map<List<String>, String> filled = createCache();
+    private final Map<String, List<String>> wrapped = createCache();
+
+    private TextTemplate(String text, String[] literals, String[] placeholders, int wrapWidth) {
+        this.text = text;
+        this.literals = literals;
+        this.placeholders = placeholders;
+        this.placeholderList = Collections.unmodifiableList(Arrays.asList(placeholders));
+        this.wrapWidth = wrapWidth;
+    }
+
+    /**
+     * Parses a template. A placeholder is a name between braces, such as {@code {coins}}; braces without a name between
+     * them are kept as they are.
+     *
+     * @param text The text of the template.
+     * @return The {@link ninja.amp.ampmenus.items.TextTemplate}.
+     */
+    public static TextTemplate compile(String text) {
+        return compile(text, 0);
+    }
+
+    /**
+     * Parses a template whose filled text is word-wrapped by {@link #fillLines(Function)}.
+     *
+     * @param text      The text of the template.
+     * @param wrapWidth The maximum amount of visible characters per line, or 0 to not wrap lines.
+     * @return The {@link ninja.amp.ampmenus.items.TextTemplate}.
+     */
+    public static TextTemplate compile(String text, int wrapWidth) {
+        List<String> literals = new ArrayList<>();
+        List<String> placeholders = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        int i = 0;
+        while (i < text.length()) {
+            char c = text.charAt(i);
+            int end = c == '{' ? text.indexOf('}', i + 1) : -1;
+            int next = c == '{' ? text.indexOf('{', i + 1) : -1;
+            if (end > i + 1 && (next == -1 || next > end)) {
+                literals.add(literal.toString());
+                literal.setLength(0);
+                placeholders.add(text.substring(i + 1, end));
+                i = end + 1;
+            } else {
+                literal.append(c);
+                i++;
+            }
+        }
+        literals.add(literal.toString());
+        return new TextTemplate(text, literals.toArray(new String[0]), placeholders.toArray(new String[0]), wrapWidth);
+    }
+
+    /**
+     * Gets the text the template was parsed from.
+     *
+     * @return The text.
+     */
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * Gets the names of the placeholders in the template, in order of appearance.
+     *
+     * @return The placeholder names.
+     */
+    public List<String> getPlaceholders() {
+        return placeholderList;
+    }
+
+    /**
+     * Checks if the template has no placeholders.
+     *
+     * @return True if the template always fills to the same text, else false.
+     */
+    public boolean isConstant() {
+        return placeholders.length == 0;
+    }
+
+    /**
+     * Gets the maximum amount of visible characters per line of {@link #fillLines(Function)}.
+     *
+     * @return The wrap width, or 0 if lines are not wrapped.
+     */
+    public int getWrapWidth() {
+        return wrapWidth;
+    }
+
+    /**
+     * Fills the placeholders of the template.
+     *
+     * @param values Gets the value of a placeholder by name. A null value fills the placeholder with an empty string.
+     * @return The filled text.
+     */
+    public String fill(Function<String, ?> values) {
+        if (placeholders.length == 0) {
+            return literals[0];
+        }
+        String[] resolved = new String[placeholders.length];
+        for (int i = 0; i < placeholders.length; i++) {
+            Object value = values.apply(placeholders[i]);
+            resolved[i] = value != null ? value.toString() : "";
+        }
+        List<String> key = Arrays.asList(resolved);
+        synchronized (filled) {
+            String cached = filled.get(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        StringBuilder builder = new StringBuilder(literals[0]);
+        for (int i = 0; i < resolved.length; i++) {
+            builder.append(resolved[i]).append(literals[i + 1]);
+        }
+        String result = builder.toString();
+        synchronized (filled) {
+            filled.put(key, result);
+        }
+        return result;
+    }
+
+    /**
+     * Fills the placeholders of the template and wraps the text into lines no longer than the wrap width, carrying
+     * colors over to the following lines.
+     *
+     * @param values Gets the value of a placeholder by name. A null value fills the placeholder with an empty string.
+     * @return The filled lines.
+     */
+    public List<String> fillLines(Function<String, ?> values) {
+        String result = fill(values);
+        if (wrapWidth <= 0) {
+            return Collections.singletonList(result);
+        }
+        synchronized (wrapped) {
+            List<String> cached = wrapped.get(result);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        List<String> lines = Collections.unmodifiableList(wrap(result, wrapWidth));
+        synchronized (wrapped) {
+            wrapped.put(result, lines);
+        }
+        return lines;
+    }
+
+    private static List<String> wrap(String text, int width) {
+        List<String> lines = new ArrayList<>();
+        StringBuilder line = new StringBuilder();
+        int visible = 0;
+        for (String word : text.split(" ")) {
+            int length = visibleLength(word);
+            if (visible > 0 && visible + 1 + length > width) {
+                String finished = line.toString();
+                lines.add(finished);
+                line.setLength(0);
+                line.append(ChatColor.getLastColors(finished));
+                visible = 0;
+            }
+            if (visible > 0) {
+                line.append(' ');
+                visible++;
+            }
+            line.append(word);
+            visible += length;
+        }
+        lines.add(line.toString());
+        return lines;
+    }
+
+    private static int visibleLength(String word) {
+        int length = 0;
+        for (int i = 0; i < word.length(); i++) {
+            if (word.charAt(i) == ChatColor.COLOR_CHAR && i + 1 < word.length()) {
+                i++;
+            } else {
+                length++;
+            }
+        }
+        return length;
+    }
+
+    private static <K, V> Map<K, V> createCache() {
+        return new LinkedHashMap<K, V>(16, 0.75F, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > CACHE_SIZE;
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+
+}
@@ -24,13 +24,9 @@ import org.bukkit.inventory.ItemStack;
 
 /**
  * A {@link MenuItem} that will dynamically change it's {@link #getFinalIcon(Player)} output depending on
- * {@link #getValue(Player)}.
+ * {@link #getValue(Player)}. The dressed icons of the three states are built once, see {@link StatefulMenuItem}.
  */
-public abstract class TristateMenuItem extends MenuItem {
-
-    private final ItemStack stateOneIcon;
-    private final ItemStack stateTwoIcon;
-    private final ItemStack stateThreeIcon;
+public abstract class TristateMenuItem extends StatefulMenuItem {
 
     public TristateMenuItem(String displayName, String... lore) {
         this(
@@ -43,32 +39,24 @@ public abstract class TristateMenuItem extends MenuItem {
     }
 
     public TristateMenuItem(String displayName, ItemStack stateOneIcon, ItemStack stateTwoIcon, ItemStack stateThreeIcon, String... lore) {
-        super(displayName, Materials.UNKNOWN_ITEM, lore);
-        this.stateOneIcon = stateOneIcon;
-        this.stateTwoIcon = stateTwoIcon;
-        this.stateThreeIcon = stateThreeIcon;
+        super(displayName, new ItemStack[]{stateOneIcon, stateTwoIcon, stateThreeIcon}, lore);
     }
 
     public abstract Tristate getValue(Player player);
 
     @Override
-    public ItemStack getFinalIcon(Player player) {
-        Tristate value = getValue(player);
-        return value.value == 1
-                ? stateOneIcon
-                : value.value == 2
-                        ? stateTwoIcon
-                        : stateThreeIcon;
+    public int getState(Player player) {
+        return getValue(player).value - 1;
     }
 
     public ItemStack getStateOneIcon() {
-        return stateOneIcon.clone();
+        return getStateIcon(0).clone();
     }
     public ItemStack getStateTwoIcon() {
-        return stateTwoIcon.clone();
+        return getStateIcon(1).clone();
     }
     public ItemStack getStateThreeIcon() {
-        return stateThreeIcon.clone();
+        return getStateIcon(2).clone();
     }
 
     public enum Tristate {
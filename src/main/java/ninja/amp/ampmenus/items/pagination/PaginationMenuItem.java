@@ -20,8 +20,10 @@ package ninja.amp.ampmenus.items.pagination;
 
 import ninja.amp.ampmenus.events.ItemClickEvent;
 import ninja.amp.ampmenus.items.MenuItem;
+import ninja.amp.ampmenus.items.RenderCache;
 import ninja.amp.ampmenus.menus.ItemMenu;
 import ninja.amp.ampmenus.menus.PaginatedItemMenu;
+import ninja.amp.ampmenus.menus.RenderContext;
 import org.bukkit.Material;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
@@ -30,7 +32,7 @@ import java.util.List;
 
 /**
  * This class is used internally in {@link PaginatedItemMenu}. This is the {@link MenuItem} that acts as a proxy for the
- * items supplied in {@link PaginatedItemMenu#getItems(Player)}. The main purpose of this class is to transparently act
+ * items supplied in {@link PaginatedItemMenu#getSource(Player)}. The main purpose of this class is to transparently act
  * as the correct MenuItem when one is present, otherwise behave as a {@link ItemMenu#EMPTY_SLOT_ITEM}.
  */
 public class PaginationMenuItem extends MenuItem {
@@ -45,14 +47,26 @@ public class PaginationMenuItem extends MenuItem {
     }
 
     public MenuItem getEffectiveItem(Player player) {
-        List<MenuItem> items = menu.getItems(player);
-        int target = menu.getPage(player) * (9 * 5) + index;
-        return items.size() - 1 >= target ? items.get(target) : ItemMenu.EMPTY_SLOT_ITEM;
+        return getEffectiveItem(player, null);
+    }
+
+    public MenuItem getEffectiveItem(Player player, RenderContext context) {
+        if (context == null) {
+            List<MenuItem> items = menu.getSource(player, null).slice(menu.getPage(player) * PaginatedItemMenu.ITEMS_PER_PAGE + index, 1);
+            return items.isEmpty() ? ItemMenu.EMPTY_SLOT_ITEM : items.get(0);
+        }
+        List<MenuItem> items = menu.getPageItems(player, context);
+        return items.size() > index ? items.get(index) : ItemMenu.EMPTY_SLOT_ITEM;
     }
 
     @Override
     public ItemStack getFinalIcon(Player player) {
-        return getEffectiveItem(player).getFinalIcon(player);
+        return getFinalIcon(player, null);
+    }
+
+    @Override
+    public ItemStack getFinalIcon(Player player, RenderContext context) {
+        return RenderCache.getInstance().getFinalIcon(getEffectiveItem(player, context), player, context);
     }
 
     @Override
@@ -22,6 +22,7 @@ import ninja.amp.ampmenus.Materials;
 import ninja.amp.ampmenus.events.ItemClickEvent;
 import ninja.amp.ampmenus.items.MenuItem;
 import ninja.amp.ampmenus.menus.PaginatedItemMenu;
+import ninja.amp.ampmenus.menus.RenderContext;
 import org.bukkit.Material;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
@@ -43,15 +44,20 @@ public class PaginationPageItem extends MenuItem {
 
     @Override
     public void onItemClick(ItemClickEvent event) {
-        int clamped = clampPageNumber(event.getPlayer(), this.menu.getPage(event.getPlayer()) + modifier);
+        int clamped = clampPageNumber(event.getPlayer(), null, this.menu.getPage(event.getPlayer()) + modifier);
         this.menu.setPage(event.getPlayer(), clamped);
         event.setWillUpdate(true);
     }
 
     @Override
     public ItemStack getFinalIcon(Player player) {
-        int target = this.menu.getPage(player) + modifier;
-        int clamped = clampPageNumber(player, this.menu.getPage(player) + modifier);
+        return getFinalIcon(player, null);
+    }
+
+    @Override
+    public ItemStack getFinalIcon(Player player, RenderContext context) {
+        int target = this.menu.getPage(player, context) + modifier;
+        int clamped = clampPageNumber(player, context, target);
         boolean validPage = target == clamped;
 
         if (target != 0 && validPage) {
@@ -63,12 +69,8 @@ public class PaginationPageItem extends MenuItem {
         }
     }
 
-    private int getPageCount(Player player) {
-        return (this.menu.getItems(player).size() / (9 * 5)) + 1;
-    }
-
-    private int clampPageNumber(Player player, int page) {
-        return Math.max(0, Math.min(page, getPageCount(player) - 1));
+    private int clampPageNumber(Player player, RenderContext context, int page) {
+        return Math.max(0, Math.min(page, this.menu.getPageCount(player, context) - 1));
     }
 
 }
@@ -0,0 +1,159 @@
+/*
+ * This file is part of AmpMenus.
+ *
+ * Copyright (c) 2014-2021 <https://github.com/Scarsz/AmpMenus/>
+ *
+ * AmpMenus is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * AmpMenus is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with AmpMenus.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ninja.amp.ampmenus.menus;
+
+import ninja.amp.ampmenus.items.MenuItem;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.WeakHashMap;
+
+/**
+ * Limits how fast a player can click in an {@link ninja.amp.ampmenus.menus.ItemMenu}. Each player gets a bucket of
+ * clicks that refills at a steady rate; clicks made while the bucket is empty are ignored. The bucket is kept by player
+ * rather than by menu session, so closing and reopening a menu does not refill it, and is discarded when the player
+ * quits.
+ */
+public class ClickLimiter {
+
+    private static final Set<ClickLimiter> LIMITERS = Collections.newSetFromMap(new WeakHashMap<>());
+
+    private final int burst;
+    private final double clicksPerSecond;
+    private final Map<UUID, Bucket> buckets = new HashMap<>();
+
+    /**
+     * Creates a {@link ninja.amp.ampmenus.menus.ClickLimiter}.
+     *
+     * @param burst           The amount of clicks a player can make in a row before being limited.
+     * @param clicksPerSecond The amount of clicks per second a player can keep making.
+     */
+    public ClickLimiter(int burst, double clicksPerSecond) {
+        if (burst < 1 || clicksPerSecond <= 0) {
+            throw new IllegalArgumentException("Burst and clicks per second must be positive");
+        }
+        this.burst = burst;
+        this.clicksPerSecond = clicksPerSecond;
+        synchronized (LIMITERS) {
+            LIMITERS.add(this);
+        }
+    }
+
+    /**
+     * Gets the amount of clicks a player can make in a row before being limited.
+     *
+     * @return The burst size.
+     */
+    public int getBurst() {
+        return burst;
+    }
+
+    /**
+     * Gets the amount of clicks per second a player can keep making.
+     *
+     * @return The refill rate.
+     */
+    public double getClicksPerSecond() {
+        return clicksPerSecond;
+    }
+
+    /**
+     * Takes a click out of the bucket of the player of a session.
+     *
+     * @param session The {@link ninja.amp.ampmenus.menus.MenuSession}.
+     * @param now     The current time in nanoseconds.
+     * @return True if the click is allowed, else false.
+     */
+    boolean tryAcquire(MenuSession session, long now) {
+        Bucket bucket = buckets.get(session.getPlayer().getUniqueId());
+        if (bucket == null) {
+            bucket = new Bucket(burst, now);
+            buckets.put(session.getPlayer().getUniqueId(), bucket);
+        }
+        double tokens = Math.min(burst, bucket.tokens + (now - bucket.lastClick) * clicksPerSecond / 1_000_000_000D);
+        bucket.lastClick = now;
+        if (tokens < 1) {
+            bucket.tokens = tokens;
+            return false;
+        }
+        bucket.tokens = tokens - 1;
+        return true;
+    }
+
+    /**
+     * Discards the buckets of a player in every {@link ninja.amp.ampmenus.menus.ClickLimiter}.
+     *
+     * @param uuid The UUID of the player.
+     */
+    public static void evict(UUID uuid) {
+        synchronized (LIMITERS) {
+            for (ClickLimiter limiter : LIMITERS) {
+                limiter.buckets.remove(uuid);
+            }
+        }
+    }
+
+    /**
+     * Discards the buckets of all players in every {@link ninja.amp.ampmenus.menus.ClickLimiter}.
+     */
+    public static void clear() {
+        synchronized (LIMITERS) {
+            for (ClickLimiter limiter : LIMITERS) {
+                limiter.buckets.clear();
+            }
+        }
+    }
+
+    /**
+     * Checks if a {@link ninja.amp.ampmenus.items.MenuItem} is off cooldown for a session, starting its cooldown if it is.
+     *
+     * @param session The {@link ninja.amp.ampmenus.menus.MenuSession}.
+     * @param item    The {@link ninja.amp.ampmenus.items.MenuItem}.
+     * @param now     The current time in nanoseconds.
+     * @return True if the click is allowed, else false.
+     */
+    static boolean tryCooldown(MenuSession session, MenuItem item, long now) {
+        int cooldown = item.getClickCooldown();
+        if (cooldown <= 0) {
+            return true;
+        }
+        Long readyAt = session.cooldowns.get(item);
+        if (readyAt != null && now - readyAt < 0) {
+            return false;
+        }
+        session.cooldowns.put(item, now + cooldown * 50_000_000L);
+        return true;
+    }
+
+    private static class Bucket {
+
+        private double tokens;
+        private long lastClick;
+
+        private Bucket(double tokens, long lastClick) {
+            this.tokens = tokens;
+            this.lastClick = lastClick;
+        }
+
+    }
+
+}
@@ -0,0 +1,251 @@
+/*
+ * This file is part of AmpMenus.
+ *
+ * Copyright (c) 2014-2021 <https://github.com/Scarsz/AmpMenus/>
+ *
+ * AmpMenus is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * AmpMenus is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with AmpMenus.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ninja.amp.ampmenus.menus;
+
+import ninja.amp.ampmenus.items.MenuItem;
+import org.bukkit.ChatColor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
+
+/**
+ * A {@link ninja.amp.ampmenus.menus.PageSource} over a list of entries that can be searched with a
+ * {@link ninja.amp.ampmenus.menus.PageQuery}. When the entries are set, the search key of every entry is split into
+ * lower case words, which are kept sorted with the entries they appear in. A text search then finds the words starting
+ * with each word of the text by binary search, without looking at the entries that do not match. A {@link ninja.amp.ampmenus.menus.PaginatedItemMenu} whose
+ * source is an {@link ninja.amp.ampmenus.menus.IndexedPageSource} runs the query of each player off the main thread
+ * and keeps the result until the query or the entries change.
+ *
+ * @param <T> The type of the entries.
+ */
+public class IndexedPageSource<T> implements PageSource<T> {
+
+    private final Function<? super T, String> keyFunction;
+    private volatile Index<T> index;
+
+    /**
+     * Creates an {@link ninja.amp.ampmenus.menus.IndexedPageSource}.
+     *
+     * @param entries     The entries.
+     * @param keyFunction Gets the text an entry is searched by.
+     */
+    public IndexedPageSource(List<? extends T> entries, Function<? super T, String> keyFunction) {
+        this.keyFunction = keyFunction;
+        this.index = createIndex(entries, 0);
+    }
+
+    /**
+     * Creates an {@link ninja.amp.ampmenus.menus.IndexedPageSource} of {@link ninja.amp.ampmenus.items.MenuItem}s
+     * searched by their display name without colors.
+     *
+     * @param items The {@link ninja.amp.ampmenus.items.MenuItem}s.
+     * @return The {@link ninja.amp.ampmenus.menus.IndexedPageSource}.
+     */
+    public static IndexedPageSource<MenuItem> ofItems(List<? extends MenuItem> items) {
+        return new IndexedPageSource<>(items, item -> ChatColor.stripColor(item.getDisplayName()));
+    }
+
+    /**
+     * Replaces the entries of the source and rebuilds the index. Results computed for the previous entries are
+     * discarded the next time they are used.
+     *
+     * @param entries The entries.
+     */
+    public void setEntries(List<? extends T> entries) {
+        index = createIndex(entries, index.version + 1);
+    }
+
+    /**
+     * Gets the version of the entries, which increases every time they are replaced.
+     *
+     * @return The version.
+     */
+    public long getVersion() {
+        return index.version;
+    }
+
+    /**
+     * Checks if another source holds the same entries, in the same order, as this one. Used to reuse the result of a
+     * query when a menu creates a new source with the same entries for every render.
+     *
+     * @param source The other {@link ninja.amp.ampmenus.menus.IndexedPageSource}.
+     * @return True if both sources hold equal entries, else false.
+     */
+    boolean hasSameEntries(IndexedPageSource<?> source) {
+        return source == this || index.entries.equals(source.index.entries);
+    }
+
+    @Override
+    public int count() {
+        return index.entries.size();
+    }
+
+    @Override
+    public List<T> slice(int offset, int limit) {
+        return PageSource.of(index.entries).slice(offset, limit);
+    }
+
+    /**
+     * Runs a query over the entries on the current thread.
+     *
+     * @param query The {@link ninja.amp.ampmenus.menus.PageQuery}.
+     * @return The matching entries, in the order of the query.
+     */
+    public List<T> query(PageQuery<T> query) {
+        Index<T> index = this.index;
+        if (query.isAll()) {
+            return index.entries;
+        }
+        List<T> result = new ArrayList<>();
+        BitSet matches = index.find(query.getWords());
+        for (int i = matches.nextSetBit(0); i >= 0; i = matches.nextSetBit(i + 1)) {
+            T entry = index.entries.get(i);
+            if (query.accepts(entry)) {
+                result.add(entry);
+            }
+        }
+        if (query.getSort() != null) {
+            result.sort(query.getSort());
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * Runs a query over the entries with an Executor. If the Executor rejects the query, the returned future is
+     * failed with a RejectedExecutionException instead of the exception being thrown.
+     *
+     * @param query    The {@link ninja.amp.ampmenus.menus.PageQuery}.
+     * @param executor The Executor.
+     * @return A future completed with the matching entries, in the order of the query.
+     */
+    public CompletableFuture<List<T>> queryAsync(PageQuery<T> query, Executor executor) {
+        try {
+            return CompletableFuture.supplyAsync(() -> query(query), executor);
+        } catch (RejectedExecutionException e) {
+            CompletableFuture<List<T>> future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+            return future;
+        }
+    }
+
+    /**
+     * Splits a text into lower case words, separated by any character that is not a letter or a digit.
+     *
+     * @param text The text.
+     * @return The words.
+     */
+    static String[] tokenize(String text) {
+        List<String> words = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean inWord = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (inWord && start < 0) {
+                start = i;
+            } else if (!inWord && start >= 0) {
+                words.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return words.toArray(new String[0]);
+    }
+
+    private Index<T> createIndex(List<? extends T> entries, long version) {
+        List<T> copy = Collections.unmodifiableList(new ArrayList<>(entries));
+        Map<String, List<Integer>> postings = new TreeMap<>();
+        for (int i = 0; i < copy.size(); i++) {
+            String key = keyFunction.apply(copy.get(i));
+            if (key == null) {
+                continue;
+            }
+            for (String word : tokenize(key)) {
+                List<Integer> posting = postings.computeIfAbsent(word, w -> new ArrayList<>());
+                if (posting.isEmpty() || posting.get(posting.size() - 1) != i) {
+                    posting.add(i);
+                }
+            }
+        }
+
+        String[] words = new String[postings.size()];
+        int[][] entryIndexes = new int[postings.size()][];
+        int w = 0;
+        for (Map.Entry<String, List<Integer>> posting : postings.entrySet()) {
+            words[w] = posting.getKey();
+            entryIndexes[w] = posting.getValue().stream().mapToInt(Integer::intValue).toArray();
+            w++;
+        }
+        return new Index<>(copy, words, entryIndexes, version);
+    }
+
+    private static class Index<T> {
+
+        private final List<T> entries;
+        private final String[] words;
+        private final int[][] entryIndexes;
+        private final long version;
+
+        private Index(List<T> entries, String[] words, int[][] entryIndexes, long version) {
+            this.entries = entries;
+            this.words = words;
+            this.entryIndexes = entryIndexes;
+            this.version = version;
+        }
+
+        /**
+         * Finds the entries whose key has, for every word of a text, a word starting with it.
+         *
+         * @param prefixes The words of the text.
+         * @return The indexes of the matching entries.
+         */
+        private BitSet find(String[] prefixes) {
+            BitSet result = new BitSet(entries.size());
+            if (prefixes.length == 0) {
+                result.set(0, entries.size());
+                return result;
+            }
+            for (int p = 0; p < prefixes.length; p++) {
+                BitSet matches = p == 0 ? result : new BitSet(entries.size());
+                int start = Arrays.binarySearch(words, prefixes[p]);
+                for (int i = start >= 0 ? start : -start - 1; i < words.length && words[i].startsWith(prefixes[p]); i++) {
+                    for (int entry : entryIndexes[i]) {
+                        matches.set(entry);
+                    }
+                }
+                if (p > 0) {
+                    result.and(matches);
+                }
+                if (result.isEmpty()) {
+                    break;
+                }
+            }
+            return result;
+        }
+
+    }
+
+}
@@ -0,0 +1,168 @@
+/*
+ * This file is part of AmpMenus.
+ *
+ * Copyright (c) 2014-2021 <https://github.com/Scarsz/AmpMenus/>
+ *
+ * AmpMenus is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * AmpMenus is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with AmpMenus.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ninja.amp.ampmenus.menus;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Recycles the inventories of closed {@link ninja.amp.ampmenus.menus.ItemMenu}s that have pooling enabled, so that
+ * menus opened many times in a row do not create a new Inventory every time. Inventories are pooled per
+ * {@link ninja.amp.ampmenus.menus.ItemMenu.Size} and title, since the title of an Inventory cannot be changed. The
+ * total amount of pooled inventories is capped across all titles, so menus with a title per player do not make the
+ * pool grow without bound; the inventories released longest ago are dropped first.
+ */
+public class InventoryPool {
+
+    private static final InventoryPool INSTANCE = new InventoryPool();
+
+    private final Map<ItemMenu.Size, Map<String, Deque<MenuHolder>>> pools = new EnumMap<>(ItemMenu.Size.class);
+    private final Map<MenuHolder, String> released = new LinkedHashMap<>();
+    private int capacity = 16;
+    private int totalCapacity = 128;
+
+    private InventoryPool() {
+    }
+
+    /**
+     * Gets the {@link ninja.amp.ampmenus.menus.InventoryPool} instance.
+     *
+     * @return The {@link ninja.amp.ampmenus.menus.InventoryPool} instance.
+     */
+    public static InventoryPool getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Gets the maximum amount of inventories kept for each size and title.
+     *
+     * @return The capacity.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Sets the maximum amount of inventories kept for each size and title.
+     *
+     * @param capacity The capacity.
+     */
+    public void setCapacity(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * Gets the maximum amount of inventories kept across all sizes and titles.
+     *
+     * @return The total capacity.
+     */
+    public int getTotalCapacity() {
+        return totalCapacity;
+    }
+
+    /**
+     * Sets the maximum amount of inventories kept across all sizes and titles.
+     *
+     * @param totalCapacity The total capacity.
+     */
+    public void setTotalCapacity(int totalCapacity) {
+        this.totalCapacity = totalCapacity;
+        trim();
+    }
+
+    /**
+     * Takes an unused {@link ninja.amp.ampmenus.menus.MenuHolder} out of the pool and points it at a menu.
+     *
+     * @param menu  The {@link ninja.amp.ampmenus.menus.ItemMenu} that will hold the Inventory.
+     * @param title The title of the Inventory.
+     * @return The {@link ninja.amp.ampmenus.menus.MenuHolder}, or null if the pool has none.
+     */
+    MenuHolder acquire(ItemMenu menu, String title) {
+        Map<String, Deque<MenuHolder>> titles = pools.get(menu.getSize());
+        Deque<MenuHolder> holders = titles != null ? titles.get(title) : null;
+        if (holders != null) {
+            MenuHolder holder;
+            while ((holder = holders.poll()) != null) {
+                released.remove(holder);
+                if (holder.getInventory().getViewers().isEmpty()) {
+                    if (holders.isEmpty()) {
+                        titles.remove(title);
+                    }
+                    holder.setMenu(menu);
+                    return holder;
+                }
+            }
+            titles.remove(title);
+        }
+        return null;
+    }
+
+    /**
+     * Returns the {@link ninja.amp.ampmenus.menus.MenuHolder} of a closed menu to the pool. Its contents are kept so
+     * that the next menu using it only has to write the slots that differ.
+     *
+     * @param holder The {@link ninja.amp.ampmenus.menus.MenuHolder}.
+     */
+    public void release(MenuHolder holder) {
+        if (holder.getTitle() == null || holder.getInventory().getViewers().size() > 1 || released.containsKey(holder)) {
+            return;
+        }
+        holder.cancelLoad();
+        Deque<MenuHolder> holders = pools.computeIfAbsent(ItemMenu.Size.fit(holder.getInventory().getSize()), size -> new HashMap<>())
+                .computeIfAbsent(holder.getTitle(), title -> new ArrayDeque<>());
+        if (holders.size() < capacity) {
+            holders.push(holder);
+            released.put(holder, holder.getTitle());
+            trim();
+        }
+    }
+
+    /**
+     * Drops the inventories released longest ago until the pool is within its total capacity.
+     */
+    private void trim() {
+        Iterator<Map.Entry<MenuHolder, String>> iterator = released.entrySet().iterator();
+        while (released.size() > totalCapacity && iterator.hasNext()) {
+            Map.Entry<MenuHolder, String> eldest = iterator.next();
+            iterator.remove();
+            Map<String, Deque<MenuHolder>> titles = pools.get(ItemMenu.Size.fit(eldest.getKey().getInventory().getSize()));
+            Deque<MenuHolder> holders = titles != null ? titles.get(eldest.getValue()) : null;
+            if (holders != null) {
+                holders.remove(eldest.getKey());
+                if (holders.isEmpty()) {
+                    titles.remove(eldest.getValue());
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes all inventories from the pool.
+     */
+    public void clear() {
+        pools.clear();
+        released.clear();
+    }
+
+}
@@ -20,18 +20,39 @@ package ninja.amp.ampmenus.menus;
 
 import ninja.amp.ampmenus.Materials;
 import ninja.amp.ampmenus.MenuListener;
+import ninja.amp.ampmenus.MenuMetrics;
 import ninja.amp.ampmenus.events.ItemClickEvent;
 import ninja.amp.ampmenus.items.MenuItem;
+import ninja.amp.ampmenus.items.RenderCache;
 import ninja.amp.ampmenus.items.StaticMenuItem;
+import ninja.amp.ampmenus.items.SubMenuItem;
 import org.bukkit.Bukkit;
+import org.bukkit.entity.HumanEntity;
 import org.bukkit.entity.Player;
 import org.bukkit.event.Listener;
 import org.bukkit.event.inventory.ClickType;
 import org.bukkit.event.inventory.InventoryClickEvent;
 import org.bukkit.event.inventory.InventoryCloseEvent;
 import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.InventoryView;
+import org.bukkit.inventory.ItemStack;
 import org.bukkit.plugin.java.JavaPlugin;
 
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
 /**
  * A Menu controlled by ItemStacks in an Inventory.
  */
@@ -42,12 +63,32 @@ public class ItemMenu implements Listener {
     private Size size;
     private MenuItem[] items;
     private ItemMenu parent;
+    private boolean inventoryPooling;
+    private boolean shared;
+    private boolean sharedDirty;
+    private MenuHolder sharedHolder;
+    private int refreshInterval;
+    private ClickLimiter clickLimiter;
+    private boolean prewarming;
+    private int layoutVersion;
+    private long slotsWritten;
+    private long slotsSkipped;
 
     /**
      * The {@link ninja.amp.ampmenus.items.StaticMenuItem} that appears in empty slots if {@link ninja.amp.ampmenus.menus.ItemMenu#fillEmptySlots()} is called.
      */
     public static final MenuItem EMPTY_SLOT_ITEM = new StaticMenuItem(" ", Materials.EMPTY_ITEM);
 
+    /**
+     * The {@link ninja.amp.ampmenus.items.StaticMenuItem} that appears in every slot while a menu opened with
+     * {@link ninja.amp.ampmenus.menus.ItemMenu#openAsync(Player, Supplier, BiConsumer)} is loading.
+     */
+    public static final MenuItem LOADING_ITEM = new StaticMenuItem("Loading...", Materials.EMPTY_ITEM);
+
+    private static final int OPENS_PER_TICK = 50;
+    private static Executor loaderExecutor = createLoaderExecutor();
+    private static final Method viewSetTitle = findViewSetTitle();
+
     /**
      * Creates an {@link ninja.amp.ampmenus.menus.ItemMenu} with no parent.
      *
@@ -75,6 +116,15 @@ public class ItemMenu implements Listener {
         this.parent = parent;
     }
 
+    /**
+     * Gets the {@link org.bukkit.plugin.java.JavaPlugin} that created the {@link ninja.amp.ampmenus.menus.ItemMenu}.
+     *
+     * @return The {@link org.bukkit.plugin.java.JavaPlugin} instance.
+     */
+    public JavaPlugin getPlugin() {
+        return plugin;
+    }
+
     /**
      * Gets the name of the {@link ninja.amp.ampmenus.menus.ItemMenu}.
      *
@@ -140,6 +190,7 @@ public class ItemMenu implements Listener {
      */
     public ItemMenu setItem(int position, MenuItem menuItem) {
         items[position] = menuItem;
+        layoutVersion++;
         return this;
     }
 
@@ -153,6 +204,7 @@ public class ItemMenu implements Listener {
      */
     public ItemMenu setItem(int row, int column, MenuItem menuItem) {
         items[(row - 1) * 9 + (column - 1)] = menuItem;
+        layoutVersion++;
         return this;
     }
 
@@ -168,6 +220,7 @@ public class ItemMenu implements Listener {
                 items[i] = menuItem;
             }
         }
+        layoutVersion++;
         return this;
     }
 
@@ -186,54 +239,874 @@ public class ItemMenu implements Listener {
      * @param player The player.
      */
     public void open(Player player) {
+        long start = MenuMetrics.getInstance().start();
+        if (!MenuListener.getInstance().isRegistered(plugin)) {
+            MenuListener.getInstance().register(plugin);
+        }
+        MenuHolder holder;
+        int written;
+        if (shared) {
+            written = renderSharedHolder(player);
+            holder = sharedHolder;
+        } else {
+            holder = createHolder(player);
+            ItemStack[] prewarmed = prewarming ? MenuPrewarmer.getInstance().take(player, this, holder.getTitle()) : null;
+            if (prewarmed != null) {
+                written = copy(holder, prewarmed, null);
+            } else {
+                written = apply(holder.getInventory(), holder, player);
+            }
+        }
+        show(player, holder);
+        MenuMetrics.getInstance().record(MenuMetrics.Operation.OPEN, getClass(), start, written);
+    }
+
+    /**
+     * Opens the {@link ninja.amp.ampmenus.menus.ItemMenu} for many players at once, such as everyone taking part in an
+     * event. At most 50 players are opened each tick.
+     *
+     * @param players The players.
+     * @see #open(Collection, int)
+     */
+    public void open(Collection<? extends Player> players) {
+        open(players, OPENS_PER_TICK);
+    }
+
+    /**
+     * Opens the {@link ninja.amp.ampmenus.menus.ItemMenu} for many players at once, such as everyone taking part in an
+     * event. The slots whose items are not player dependent, see
+     * {@link ninja.amp.ampmenus.items.MenuItem#isPlayerDependent()}, are rendered once and copied into the Inventory of
+     * each player, so only the other slots are rendered per player. The players are opened in order, a limited amount
+     * per tick starting with the current tick, to spread the work over several ticks; players that went offline before
+     * their turn are skipped.
+     *
+     * @param players The players.
+     * @param perTick The maximum amount of players opened each tick.
+     */
+    public void open(Collection<? extends Player> players, int perTick) {
+        if (perTick < 1) {
+            throw new IllegalArgumentException("At least one player must be opened per tick");
+        }
+        List<Player> queue = new ArrayList<>(players);
+        if (queue.isEmpty()) {
+            return;
+        }
+        if (!MenuListener.getInstance().isRegistered(plugin)) {
+            MenuListener.getInstance().register(plugin);
+        }
+
+        BatchRender render = shared ? null : new BatchRender(queue.get(0));
+        for (int from = 0, delay = 0; from < queue.size(); from += perTick, delay++) {
+            List<Player> batch = queue.subList(from, Math.min(from + perTick, queue.size()));
+            if (delay == 0) {
+                open(batch, render);
+            } else {
+                Bukkit.getScheduler().runTaskLater(plugin, () -> open(batch, render), delay);
+            }
+        }
+    }
+
+    /**
+     * Opens the {@link ninja.amp.ampmenus.menus.ItemMenu} for one tick's share of the players of a batch open.
+     *
+     * @param players The players.
+     * @param render  The slots rendered once for all players, or null if the menu is shared.
+     */
+    private void open(List<Player> players, BatchRender render) {
+        for (Player player : players) {
+            if (!player.isOnline()) {
+                continue;
+            }
+            if (render == null) {
+                open(player);
+                continue;
+            }
+            long start = MenuMetrics.getInstance().start();
+            MenuHolder holder = createHolder(player);
+            int written = copy(holder, render.icons, render.independent) + applySlots(holder, player, render.dependent, render.dependent.length);
+            show(player, holder);
+            MenuMetrics.getInstance().record(MenuMetrics.Operation.OPEN, getClass(), start, written);
+        }
+    }
+
+    /**
+     * Shows the Inventory of a {@link ninja.amp.ampmenus.menus.MenuHolder} to a player and starts tracking the
+     * player's session.
+     *
+     * @param player The player.
+     * @param holder The {@link ninja.amp.ampmenus.menus.MenuHolder}.
+     */
+    private void show(Player player, MenuHolder holder) {
+        if (player.openInventory(holder.getInventory()) != null) {
+            MenuListener.getInstance().startSession(player, holder);
+            if (isRefreshing()) {
+                MenuTicker.getInstance().start(plugin);
+            }
+            prewarmTargets(player);
+        }
+    }
+
+    /**
+     * Queues the targets of the {@link ninja.amp.ampmenus.items.SubMenuItem}s of the menu that have prewarming enabled
+     * to be rendered for a player by the {@link ninja.amp.ampmenus.menus.MenuPrewarmer}.
+     *
+     * @param player The player who opened the menu.
+     */
+    private void prewarmTargets(Player player) {
+        for (MenuItem item : items) {
+            if (item instanceof SubMenuItem) {
+                ItemMenu target = ((SubMenuItem) item).getMenu();
+                if (target != null && target != this && target.isPrewarming() && !MenuPrewarmer.getInstance().isFresh(player, target)) {
+                    MenuPrewarmer.getInstance().prewarm(player, target);
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks if the {@link ninja.amp.ampmenus.menus.ItemMenu} is rendered for players before they open it, see
+     * {@link ninja.amp.ampmenus.menus.MenuPrewarmer}.
+     *
+     * @return True if prewarming is enabled, else false.
+     */
+    public boolean isPrewarming() {
+        return prewarming;
+    }
+
+    /**
+     * Sets if the {@link ninja.amp.ampmenus.menus.ItemMenu} is rendered for players before they open it. When enabled,
+     * the menu is prewarmed for a player as soon as they open a menu holding a
+     * {@link ninja.amp.ampmenus.items.SubMenuItem} leading to it. Only enable this for menus whose icons change rarely.
+     *
+     * @param prewarming If prewarming is enabled.
+     * @return The {@link ninja.amp.ampmenus.menus.ItemMenu}.
+     */
+    public ItemMenu setPrewarming(boolean prewarming) {
+        this.prewarming = prewarming;
+        return this;
+    }
+
+    /**
+     * Gets a counter increased every time an item of the {@link ninja.amp.ampmenus.menus.ItemMenu} is set, used to
+     * tell if a prewarmed render is still fresh.
+     *
+     * @return The layout version.
+     */
+    int getLayoutVersion() {
+        return layoutVersion;
+    }
+
+    /**
+     * Renders the {@link ninja.amp.ampmenus.menus.ItemMenu} for a player without an Inventory.
+     *
+     * @param player The player.
+     * @return The icons of every slot.
+     */
+    ItemStack[] render(Player player) {
+        ItemStack[] icons = new ItemStack[items.length];
+        RenderContext context = new RenderContext(this, player);
+        for (int i = 0; i < items.length; i++) {
+            if (items[i] != null) {
+                context.setSlot(i);
+                icons[i] = RenderCache.getInstance().getFinalIcon(items[i], player, context);
+            }
+        }
+        return icons;
+    }
+
+    /**
+     * Copies rendered icons into the Inventory of a {@link ninja.amp.ampmenus.menus.MenuHolder}, skipping slots whose
+     * icon is unchanged.
+     *
+     * @param holder The {@link ninja.amp.ampmenus.menus.MenuHolder}.
+     * @param icons  The icons, by slot.
+     * @param slots  The slot positions to copy, or null to copy every slot.
+     * @return The amount of slots written.
+     */
+    private int copy(MenuHolder holder, ItemStack[] icons, int[] slots) {
+        ItemStack[] snapshot = holder.getSnapshot(items.length);
+        int count = slots != null ? slots.length : items.length;
+        int written = 0;
+        for (int i = 0; i < count; i++) {
+            int slot = slots != null ? slots[i] : i;
+            if (!Objects.equals(snapshot[slot], icons[slot])) {
+                holder.getInventory().setItem(slot, icons[slot]);
+                snapshot[slot] = icons[slot] != null ? icons[slot].clone() : null;
+                written++;
+            }
+        }
+        slotsWritten += written;
+        slotsSkipped += count - written;
+        return written;
+    }
+
+    /**
+     * Creates the {@link ninja.amp.ampmenus.menus.MenuHolder} of the Inventory shared by all viewers of a shared menu
+     * if needed, and renders it if it is out of date.
+     *
+     * @param player The player opening the menu.
+     * @return The amount of slots written, 0 if the shared Inventory was up to date.
+     */
+    private int renderSharedHolder(Player player) {
+        if (sharedHolder == null) {
+            sharedHolder = new MenuHolder(this, size.getSize(), getName());
+            sharedDirty = true;
+        }
+        if (!sharedDirty) {
+            return 0;
+        }
+        int written = apply(sharedHolder.getInventory(), sharedHolder, player);
+        sharedDirty = false;
+        return written;
+    }
+
+    /**
+     * Checks if the {@link ninja.amp.ampmenus.menus.ItemMenu} shows a single Inventory to all of its viewers.
+     *
+     * @return True if the menu is shared, else false.
+     */
+    public boolean isShared() {
+        return shared;
+    }
+
+    /**
+     * Sets if the {@link ninja.amp.ampmenus.menus.ItemMenu} shows a single Inventory to all of its viewers. A shared
+     * menu is rendered once, with {@link #getName()} as its title, and every update is seen by all viewers at once.
+     * Only use this for menus whose items look the same for every player.
+     *
+     * @param shared If the menu is shared.
+     * @return The {@link ninja.amp.ampmenus.menus.ItemMenu}.
+     */
+    public ItemMenu setShared(boolean shared) {
+        this.shared = shared;
+        this.sharedHolder = null;
+        return this;
+    }
+
+    /**
+     * Creates the {@link ninja.amp.ampmenus.menus.MenuHolder} and Inventory used to show the menu to a player, taking
+     * them from the {@link ninja.amp.ampmenus.menus.InventoryPool} if pooling is enabled.
+     *
+     * @param player The player.
+     * @return The {@link ninja.amp.ampmenus.menus.MenuHolder}.
+     */
+    private MenuHolder createHolder(Player player) {
+        String title = getName(player);
+        MenuHolder holder = inventoryPooling ? InventoryPool.getInstance().acquire(this, title) : null;
+        return holder != null ? holder : new MenuHolder(this, size.getSize(), title);
+    }
+
+    /**
+     * Checks if the inventories of the {@link ninja.amp.ampmenus.menus.ItemMenu} are recycled through the
+     * {@link ninja.amp.ampmenus.menus.InventoryPool} when closed.
+     *
+     * @return True if inventory pooling is enabled, else false.
+     */
+    public boolean isInventoryPooling() {
+        return inventoryPooling;
+    }
+
+    /**
+     * Sets if the inventories of the {@link ninja.amp.ampmenus.menus.ItemMenu} are recycled through the
+     * {@link ninja.amp.ampmenus.menus.InventoryPool} when closed. Useful for menus that players open many times.
+     *
+     * @param inventoryPooling If inventory pooling is enabled.
+     * @return The {@link ninja.amp.ampmenus.menus.ItemMenu}.
+     */
+    public ItemMenu setInventoryPooling(boolean inventoryPooling) {
+        this.inventoryPooling = inventoryPooling;
+        return this;
+    }
+
+    /**
+     * Opens the {@link ninja.amp.ampmenus.menus.ItemMenu} for a player after loading data off the main thread. The menu
+     * is opened immediately showing the loading layout, and is rendered once the data has been passed to the consumer.
+     * Clicks are ignored while loading, and the load is cancelled if the player closes the menu first. Not supported
+     * for shared menus.
+     *
+     * @param player   The player.
+     * @param loader   Loads the data, called off the main thread.
+     * @param consumer Receives the loaded data on the main thread, before the menu is rendered.
+     * @param <T>      The type of the data.
+     * @return A future completed on the main thread once the menu has been rendered with the loaded data, or failed
+     * with a RejectedExecutionException without opening the menu if the loader executor is full.
+     */
+    public <T> CompletableFuture<T> openAsync(Player player, Supplier<T> loader, BiConsumer<Player, T> consumer) {
+        if (shared) {
+            throw new IllegalStateException("Shared menus cannot be opened asynchronously");
+        }
         if (!MenuListener.getInstance().isRegistered(plugin)) {
             MenuListener.getInstance().register(plugin);
         }
-        Inventory inventory = Bukkit.createInventory(new MenuHolder(this, Bukkit.createInventory(player, size.getSize())), size.getSize(), getName(player));
-        apply(inventory, player);
-        player.openInventory(inventory);
+        CompletableFuture<T> load = supplyAsync(loader);
+        if (load.isCompletedExceptionally()) {
+            return load;
+        }
+
+        MenuHolder holder = createHolder(player);
+        Inventory inventory = holder.getInventory();
+        applyLoading(inventory, holder, player);
+        holder.setLoad(load);
+        if (player.openInventory(inventory) == null) {
+            holder.setLoad(null);
+            load.cancel(false);
+            return CompletableFuture.completedFuture(null);
+        }
+        MenuListener.getInstance().startSession(player, holder);
+        if (isRefreshing()) {
+            MenuTicker.getInstance().start(plugin);
+        }
+
+        CompletableFuture<T> result = new CompletableFuture<>();
+        load.whenComplete((data, throwable) -> {
+            if (load.isCancelled()) {
+                result.cancel(false);
+                return;
+            }
+            Bukkit.getScheduler().runTask(plugin, () -> {
+                if (holder.getLoad() != load) {
+                    result.cancel(false);
+                    return;
+                }
+                holder.setLoad(null);
+                if (throwable != null) {
+                    player.closeInventory();
+                    result.completeExceptionally(throwable);
+                } else {
+                    consumer.accept(player, data);
+                    apply(inventory, holder, player);
+                    result.complete(data);
+                }
+            });
+        });
+        return result;
+    }
+
+    /**
+     * Sets the Executor used to load data for
+     * {@link ninja.amp.ampmenus.menus.ItemMenu#openAsync(Player, Supplier, BiConsumer)}. By default, a small pool with
+     * a bounded queue is used.
+     *
+     * @param executor The Executor.
+     */
+    public static void setLoaderExecutor(Executor executor) {
+        loaderExecutor = executor;
+    }
+
+    /**
+     * Runs a supplier on the loader executor. If the executor rejects it, the returned future is failed with a
+     * RejectedExecutionException instead of the exception being thrown.
+     *
+     * @param supplier The supplier.
+     * @param <T>      The type of the result.
+     * @return The future result.
+     */
+    static <T> CompletableFuture<T> supplyAsync(Supplier<T> supplier) {
+        LoaderTask<T> task = new LoaderTask<>(supplier);
+        try {
+            loaderExecutor.execute(task);
+        } catch (RejectedExecutionException e) {
+            task.future.completeExceptionally(e);
+        }
+        return task.future;
+    }
+
+    private static Executor createLoaderExecutor() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(4, 4, 30, TimeUnit.SECONDS, new ArrayBlockingQueue<>(256), runnable -> {
+            Thread thread = new Thread(runnable, "AmpMenus Loader");
+            thread.setDaemon(true);
+            return thread;
+        }, (runnable, pool) -> {
+            RejectedExecutionException exception = new RejectedExecutionException("The AmpMenus loader queue is full");
+            if (!(runnable instanceof LoaderTask)) {
+                throw exception;
+            }
+            ((LoaderTask<?>) runnable).future.completeExceptionally(exception);
+        });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * A supplier run on the loader executor, completing a future with its result.
+     *
+     * @param <T> The type of the result.
+     */
+    private static class LoaderTask<T> implements Runnable {
+
+        private final Supplier<T> supplier;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+
+        private LoaderTask(Supplier<T> supplier) {
+            this.supplier = supplier;
+        }
+
+        @Override
+        public void run() {
+            if (future.isDone()) {
+                return;
+            }
+            try {
+                future.complete(supplier.get());
+            } catch (Throwable throwable) {
+                future.completeExceptionally(throwable);
+            }
+        }
+
+    }
+
+    /**
+     * Gets the {@link ninja.amp.ampmenus.items.MenuItem} shown in every slot while the menu is loading. Override to
+     * change the loading layout.
+     *
+     * @param player The player.
+     * @param slot   The slot position.
+     * @return The {@link ninja.amp.ampmenus.items.MenuItem}, or null to leave the slot empty.
+     */
+    public MenuItem getLoadingItem(Player player, int slot) {
+        return LOADING_ITEM;
+    }
+
+    /**
+     * Updates the {@link ninja.amp.ampmenus.menus.ItemMenu} for a player. Only slots whose icon changed since the last
+     * render are written to the inventory, and the inventory is only resent to the client if any were. Updating a
+     * shared menu updates it for all of its viewers.
+     *
+     * @param player The player to update the {@link ninja.amp.ampmenus.menus.ItemMenu} for.
+     */
+    public void update(Player player) {
+        update(player, false);
     }
 
     /**
      * Updates the {@link ninja.amp.ampmenus.menus.ItemMenu} for a player.
      *
      * @param player The player to update the {@link ninja.amp.ampmenus.menus.ItemMenu} for.
+     * @param resync If the inventory is resent to the client even if no slot changed, as needed after a cancelled
+     *               click so that the client drops the items it moved.
      */
     @SuppressWarnings("deprecation")
-    public void update(Player player) {
-        if (player.getOpenInventory() != null) {
-            Inventory inventory = player.getOpenInventory().getTopInventory();
-            if (inventory.getHolder() instanceof MenuHolder && ((MenuHolder) inventory.getHolder()).getMenu().equals(this)) {
-                apply(inventory, player);
-                player.updateInventory();
+    private void update(Player player, boolean resync) {
+        long start = MenuMetrics.getInstance().start();
+        if (prewarming) {
+            MenuPrewarmer.getInstance().invalidate(player, this);
+        }
+        MenuHolder holder = getHolder(player);
+        int written = holder != null ? apply(holder.getInventory(), holder, player) : 0;
+        if (written > 0 || resync) {
+            player.updateInventory();
+        }
+        MenuMetrics.getInstance().record(MenuMetrics.Operation.UPDATE, getClass(), start, written);
+    }
+
+    /**
+     * Updates the {@link ninja.amp.ampmenus.menus.ItemMenu} for all players viewing it. A shared menu is rendered only
+     * once for all of its viewers.
+     */
+    public void update() {
+        if (shared) {
+            if (sharedHolder != null) {
+                List<HumanEntity> viewers = sharedHolder.getInventory().getViewers();
+                if (viewers.isEmpty()) {
+                    sharedDirty = true;
+                } else {
+                    apply(sharedHolder.getInventory(), sharedHolder, (Player) viewers.get(0));
+                }
+            }
+            return;
+        }
+        for (MenuSession session : getSessions()) {
+            update(session.getPlayer());
+        }
+    }
+
+    /**
+     * Gets the state of a player for the {@link ninja.amp.ampmenus.menus.ItemMenu}. The state is safe to use from any
+     * thread, and is discarded once the player closes the menu, changes worlds or quits. While the menu is prewarmed for
+     * a player who has no state, an empty state that is not stored is returned.
+     *
+     * @param player The player.
+     * @return The {@link ninja.amp.ampmenus.menus.MenuState}.
+     */
+    public MenuState getState(Player player) {
+        MenuState state = MenuPrewarmer.getInstance().getRenderState(player, this);
+        return state != null ? state : MenuStateStore.getInstance().getState(player.getUniqueId(), this);
+    }
+
+    /**
+     * Gets the sessions of the players viewing the {@link ninja.amp.ampmenus.menus.ItemMenu}.
+     *
+     * @return The {@link ninja.amp.ampmenus.menus.MenuSession}s.
+     */
+    public List<MenuSession> getSessions() {
+        List<MenuSession> sessions = new ArrayList<>();
+        for (MenuSession session : MenuListener.getInstance().getSessions()) {
+            if (session.getMenu() == this) {
+                sessions.add(session);
             }
         }
+        return sessions;
     }
 
     /**
-     * Applies the {@link ninja.amp.ampmenus.menus.ItemMenu} for a player to an Inventory.
+     * Updates a single slot of the {@link ninja.amp.ampmenus.menus.ItemMenu} for a player. The slot is only written if
+     * its icon changed since the last render.
+     *
+     * @param player The player to update the {@link ninja.amp.ampmenus.menus.ItemMenu} for.
+     * @param slot   The slot position.
+     */
+    public void updateSlot(Player player, int slot) {
+        updateSlots(player, slot);
+    }
+
+    /**
+     * Updates some slots of the {@link ninja.amp.ampmenus.menus.ItemMenu} for a player. Only the given slots are
+     * rendered, and only those whose icon changed since the last render are written.
+     *
+     * @param player The player to update the {@link ninja.amp.ampmenus.menus.ItemMenu} for.
+     * @param slots  The slot positions.
+     */
+    public void updateSlots(Player player, int... slots) {
+        MenuHolder holder = getHolder(player);
+        if (holder != null) {
+            int[] valid = validSlots(slots);
+            applySlots(holder, player, valid, valid.length);
+        }
+    }
+
+    /**
+     * Updates every slot showing a {@link ninja.amp.ampmenus.items.MenuItem} for a player.
+     *
+     * @param player The player to update the {@link ninja.amp.ampmenus.menus.ItemMenu} for.
+     * @param item   The {@link ninja.amp.ampmenus.items.MenuItem}.
+     */
+    public void updateItem(Player player, MenuItem item) {
+        MenuHolder holder = getHolder(player);
+        if (holder != null) {
+            int[] slots = getSlots(player, item);
+            applySlots(holder, player, slots, slots.length);
+        }
+    }
+
+    /**
+     * Updates a single slot of the {@link ninja.amp.ampmenus.menus.ItemMenu} for all players viewing it.
+     *
+     * @param slot The slot position.
+     */
+    public void updateSlot(int slot) {
+        updateSlots(slot);
+    }
+
+    /**
+     * Updates some slots of the {@link ninja.amp.ampmenus.menus.ItemMenu} for all players viewing it. A shared menu is
+     * rendered only once for all of its viewers.
+     *
+     * @param slots The slot positions.
+     */
+    public void updateSlots(int... slots) {
+        int[] valid = validSlots(slots);
+        if (shared) {
+            if (sharedHolder != null) {
+                List<HumanEntity> viewers = sharedHolder.getInventory().getViewers();
+                if (viewers.isEmpty()) {
+                    sharedDirty = true;
+                } else {
+                    applySlots(sharedHolder, (Player) viewers.get(0), valid, valid.length);
+                }
+            }
+            return;
+        }
+        for (MenuSession session : getSessions()) {
+            applySlots(session.getHolder(), session.getPlayer(), valid, valid.length);
+        }
+    }
+
+    /**
+     * Updates every slot showing a {@link ninja.amp.ampmenus.items.MenuItem} for all players viewing the
+     * {@link ninja.amp.ampmenus.menus.ItemMenu}.
+     *
+     * @param item The {@link ninja.amp.ampmenus.items.MenuItem}.
+     */
+    public void updateItem(MenuItem item) {
+        if (shared) {
+            if (sharedHolder != null && !sharedHolder.getInventory().getViewers().isEmpty()) {
+                Player player = (Player) sharedHolder.getInventory().getViewers().get(0);
+                updateItem(player, item);
+            }
+            return;
+        }
+        for (MenuSession session : getSessions()) {
+            updateItem(session.getPlayer(), item);
+        }
+    }
+
+    /**
+     * Gets the slots showing a {@link ninja.amp.ampmenus.items.MenuItem} to a player. Override if items can be shown
+     * in slots other than the ones they were set to.
+     *
+     * @param player The player.
+     * @param item   The {@link ninja.amp.ampmenus.items.MenuItem}.
+     * @return The slot positions.
+     */
+    protected int[] getSlots(Player player, MenuItem item) {
+        int[] slots = new int[items.length];
+        int count = 0;
+        for (int i = 0; i < items.length; i++) {
+            if (items[i] == item) {
+                slots[count++] = i;
+            }
+        }
+        return Arrays.copyOf(slots, count);
+    }
+
+    private int[] validSlots(int[] slots) {
+        int[] valid = new int[slots.length];
+        int count = 0;
+        for (int slot : slots) {
+            if (slot >= 0 && slot < items.length) {
+                valid[count++] = slot;
+            }
+        }
+        return count == slots.length ? valid : Arrays.copyOf(valid, count);
+    }
+
+    /**
+     * Gets the interval at which the whole {@link ninja.amp.ampmenus.menus.ItemMenu} is updated for its viewers.
+     *
+     * @return The interval in ticks, or 0 if the menu is not refreshed.
+     */
+    public int getRefreshInterval() {
+        return refreshInterval;
+    }
+
+    /**
+     * Sets the interval at which the whole {@link ninja.amp.ampmenus.menus.ItemMenu} is updated for its viewers. Items
+     * can also be refreshed on their own with {@link ninja.amp.ampmenus.items.MenuItem#setRefreshInterval(int)}.
+     *
+     * @param refreshInterval The interval in ticks, or 0 to stop refreshing the menu.
+     * @return The {@link ninja.amp.ampmenus.menus.ItemMenu}.
+     */
+    public ItemMenu setRefreshInterval(int refreshInterval) {
+        this.refreshInterval = refreshInterval;
+        return this;
+    }
+
+    /**
+     * Checks if the {@link ninja.amp.ampmenus.menus.ItemMenu} or any of its items are refreshed on an interval.
+     *
+     * @return True if the menu is refreshed, else false.
+     */
+    public boolean isRefreshing() {
+        if (refreshInterval > 0) {
+            return true;
+        }
+        for (MenuItem item : items) {
+            if (item != null && item.getRefreshInterval() > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Refreshes the {@link ninja.amp.ampmenus.menus.ItemMenu} for its viewers, re-rendering the whole menu if its
+     * interval is due or else only the slots whose item's interval is due. Called by the
+     * {@link ninja.amp.ampmenus.menus.MenuTicker} once per tick.
+     *
+     * @param tick     The current tick.
+     * @param sessions The sessions of the players viewing the menu.
+     */
+    void refresh(long tick, List<MenuSession> sessions) {
+        boolean full = refreshInterval > 0 && tick % refreshInterval == 0;
+        int[] due = full ? null : new int[items.length];
+        for (MenuSession session : sessions) {
+            MenuHolder holder = session.getHolder();
+            Player player = session.getPlayer();
+            if (!holder.isLoading()) {
+                if (full) {
+                    apply(holder.getInventory(), holder, player);
+                } else {
+                    RenderContext context = new RenderContext(this, player);
+                    int count = 0;
+                    for (int i = 0; i < items.length; i++) {
+                        MenuItem item = getEffectiveItem(player, i, context);
+                        int interval = item != null ? item.getRefreshInterval() : 0;
+                        if (interval > 0 && tick % interval == 0) {
+                            due[count++] = i;
+                        }
+                    }
+                    if (count > 0) {
+                        applySlots(holder, context, due, count);
+                    }
+                }
+            }
+            if (shared) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Gets the {@link ninja.amp.ampmenus.menus.MenuHolder} of the player's open inventory if it shows this menu.
+     *
+     * @param player The player.
+     * @return The {@link ninja.amp.ampmenus.menus.MenuHolder}, or null if the player is not viewing this menu.
+     */
+    private MenuHolder getHolder(Player player) {
+        MenuSession session = MenuListener.getInstance().getSession(player);
+        return session != null && session.getMenu() == this ? session.getHolder() : null;
+    }
+
+    /**
+     * Applies the {@link ninja.amp.ampmenus.menus.ItemMenu} for a player to an Inventory, skipping slots whose icon is
+     * unchanged since the last time it was applied to the Inventory.
      *
      * @param inventory The Inventory.
+     * @param holder    The {@link ninja.amp.ampmenus.menus.MenuHolder} of the Inventory.
      * @param player    The Player.
+     * @return The amount of slots written.
      */
-    private void apply(Inventory inventory, Player player) {
+    private int apply(Inventory inventory, MenuHolder holder, Player player) {
+        long start = MenuMetrics.getInstance().start();
+        ItemStack[] snapshot = holder.getSnapshot(items.length);
+        RenderContext context = new RenderContext(this, player);
+        int written = 0;
         for (int i = 0; i < items.length; i++) {
-            if (items[i] != null) {
-                inventory.setItem(i, items[i].getFinalIcon(player));
-            } else {
-                inventory.setItem(i, null);
+            if (applySlot(inventory, snapshot, context, i)) {
+                written++;
             }
         }
+        slotsWritten += written;
+        slotsSkipped += items.length - written;
+        MenuMetrics.getInstance().record(MenuMetrics.Operation.APPLY, getClass(), start, written);
+        return written;
+    }
+
+    /**
+     * Applies the loading layout of the {@link ninja.amp.ampmenus.menus.ItemMenu} for a player to an Inventory.
+     *
+     * @param inventory The Inventory.
+     * @param holder    The {@link ninja.amp.ampmenus.menus.MenuHolder} of the Inventory.
+     * @param player    The Player.
+     */
+    private void applyLoading(Inventory inventory, MenuHolder holder, Player player) {
+        ItemStack[] snapshot = holder.getSnapshot(items.length);
+        for (int i = 0; i < items.length; i++) {
+            MenuItem item = getLoadingItem(player, i);
+            ItemStack icon = item != null ? item.getFinalIcon(player) : null;
+            inventory.setItem(i, icon);
+            snapshot[i] = icon != null ? icon.clone() : null;
+        }
+    }
+
+    /**
+     * Applies some slots of the {@link ninja.amp.ampmenus.menus.ItemMenu} for a player to the Inventory of a
+     * {@link ninja.amp.ampmenus.menus.MenuHolder}, skipping slots whose icon is unchanged.
+     *
+     * @param holder The {@link ninja.amp.ampmenus.menus.MenuHolder}.
+     * @param player The Player.
+     * @param slots  The slot positions.
+     * @param count  The amount of slot positions to use from the array.
+     * @return The amount of slots written.
+     */
+    private int applySlots(MenuHolder holder, Player player, int[] slots, int count) {
+        return applySlots(holder, new RenderContext(this, player), slots, count);
+    }
+
+    /**
+     * Applies some slots of the {@link ninja.amp.ampmenus.menus.ItemMenu} to the Inventory of a
+     * {@link ninja.amp.ampmenus.menus.MenuHolder} within a render, skipping slots whose icon is unchanged.
+     *
+     * @param holder  The {@link ninja.amp.ampmenus.menus.MenuHolder}.
+     * @param context The {@link ninja.amp.ampmenus.menus.RenderContext} of the render.
+     * @param slots   The slot positions.
+     * @param count   The amount of slot positions to use from the array.
+     * @return The amount of slots written.
+     */
+    private int applySlots(MenuHolder holder, RenderContext context, int[] slots, int count) {
+        ItemStack[] snapshot = holder.getSnapshot(items.length);
+        int written = 0;
+        for (int i = 0; i < count; i++) {
+            if (applySlot(holder.getInventory(), snapshot, context, slots[i])) {
+                written++;
+            }
+        }
+        slotsWritten += written;
+        slotsSkipped += count - written;
+        return written;
+    }
+
+    /**
+     * Applies a single slot of the {@link ninja.amp.ampmenus.menus.ItemMenu} to an Inventory if its icon changed.
+     *
+     * @param inventory The Inventory.
+     * @param snapshot  The icons last written to the Inventory.
+     * @param context   The {@link ninja.amp.ampmenus.menus.RenderContext} of the render.
+     * @param slot      The slot position.
+     * @return True if the slot was written, else false.
+     */
+    private boolean applySlot(Inventory inventory, ItemStack[] snapshot, RenderContext context, int slot) {
+        context.setSlot(slot);
+        ItemStack icon = items[slot] != null ? RenderCache.getInstance().getFinalIcon(items[slot], context.getPlayer(), context) : null;
+        if (Objects.equals(snapshot[slot], icon)) {
+            return false;
+        }
+        inventory.setItem(slot, icon);
+        snapshot[slot] = icon != null ? icon.clone() : null;
+        return true;
+    }
+
+    /**
+     * Gets the amount of slots written to inventories by the {@link ninja.amp.ampmenus.menus.ItemMenu}.
+     *
+     * @return The amount of slots written.
+     */
+    public long getSlotsWritten() {
+        return slotsWritten;
+    }
+
+    /**
+     * Gets the amount of slots the {@link ninja.amp.ampmenus.menus.ItemMenu} skipped because their icon was unchanged.
+     *
+     * @return The amount of slots skipped.
+     */
+    public long getSlotsSkipped() {
+        return slotsSkipped;
+    }
+
+    /**
+     * Resets the written and skipped slot counters of the {@link ninja.amp.ampmenus.menus.ItemMenu}.
+     */
+    public void resetSlotCounters() {
+        slotsWritten = 0;
+        slotsSkipped = 0;
     }
 
     /**
      * Handles InventoryClickEvents for the {@link ninja.amp.ampmenus.menus.ItemMenu}.
      */
     public void onInventoryClick(InventoryClickEvent event) {
+        long start = MenuMetrics.getInstance().start();
+        handleClick(event);
+        MenuMetrics.getInstance().record(MenuMetrics.Operation.CLICK, getClass(), start, 0);
+    }
+
+    private void handleClick(InventoryClickEvent event) {
         int slot = event.getRawSlot();
-        if (slot >= 0 && slot < size.getSize() && items[slot] != null) {
+        Player player = (Player) event.getWhoClicked();
+        MenuSession session = MenuListener.getInstance().getSession(player);
+        if (session != null && session.getMenu() != this) {
+            session = null;
+        }
+        if (slot >= 0 && slot < size.getSize() && items[slot] != null && (session == null || !session.getHolder().isLoading())) {
             MenuItem item = items[slot];
-            Player player = (Player) event.getWhoClicked();
+            if (session != null) {
+                long now = System.nanoTime();
+                if ((clickLimiter != null && !clickLimiter.tryAcquire(session, now))
+                        || !ClickLimiter.tryCooldown(session, getEffectiveItem(player, slot, null), now)) {
+                    return;
+                }
+            }
 
             ItemClickEvent itemClickEvent = new ItemClickEvent(player, event.getClick());
             item.playClickFeedback(player);
@@ -243,34 +1116,172 @@ public class ItemMenu implements Listener {
             if (event.getClick() == ClickType.MIDDLE) item.onItemMiddleClick(itemClickEvent);
 
             if (itemClickEvent.willUpdate()) {
-                update(player);
+                if (session != null) {
+                    requestUpdate(session);
+                } else {
+                    update(player, true);
+                }
             } else {
                 //noinspection deprecation
                 player.updateInventory();
 
-                if (itemClickEvent.willClose() || itemClickEvent.willGoBack()) {
-                    final String playerName = player.getName();
+                if (itemClickEvent.getWillOpen() != null) {
+                    navigate(player, itemClickEvent.getWillOpen());
+                } else if (itemClickEvent.willGoBack() && hasParent()) {
+                    navigate(player, parent);
+                } else if (itemClickEvent.willClose() || itemClickEvent.willGoBack()) {
                     Bukkit.getScheduler().scheduleSyncDelayedTask(plugin, () -> {
-                        Player p = Bukkit.getPlayerExact(playerName);
-                        if (p != null) {
-                            p.closeInventory();
+                        if (player.isOnline()) {
+                            player.closeInventory();
                         }
                     }, 1);
                 }
+            }
+        }
+    }
 
-                if (itemClickEvent.willGoBack() && hasParent()) {
-                    final String playerName = player.getName();
-                    Bukkit.getScheduler().scheduleSyncDelayedTask(plugin, () -> {
-                        Player p = Bukkit.getPlayerExact(playerName);
-                        if (p != null) {
-                            parent.open(p);
-                        }
-                    }, 3);
-                }
+    /**
+     * Gets the {@link ninja.amp.ampmenus.items.MenuItem} a slot shows to a player. Menus whose slots hold proxies for
+     * other items, like {@link ninja.amp.ampmenus.menus.PaginatedItemMenu}, return the item behind the proxy, so that
+     * its click cooldown and refresh interval apply.
+     *
+     * @param player  The player.
+     * @param slot    The slot position.
+     * @param context The {@link ninja.amp.ampmenus.menus.RenderContext} of the current render, or null outside of a render.
+     * @return The {@link ninja.amp.ampmenus.items.MenuItem}, or null if the slot is empty.
+     */
+    protected MenuItem getEffectiveItem(Player player, int slot, RenderContext context) {
+        return items[slot];
+    }
+
+    /**
+     * Opens another {@link ninja.amp.ampmenus.menus.ItemMenu} for a player viewing this one. If both menus have the same
+     * {@link ninja.amp.ampmenus.menus.ItemMenu.Size}, the open Inventory is reused and only the slots that differ are
+     * written. Otherwise the menu is closed and the other menu opened a few ticks later.
+     *
+     * @param player The player.
+     * @param menu   The {@link ninja.amp.ampmenus.menus.ItemMenu} to open.
+     */
+    public void navigate(Player player, ItemMenu menu) {
+        if (navigateInPlace(player, menu)) {
+            return;
+        }
+        Bukkit.getScheduler().scheduleSyncDelayedTask(plugin, () -> {
+            if (player.isOnline()) {
+                player.closeInventory();
+            }
+        }, 1);
+        Bukkit.getScheduler().scheduleSyncDelayedTask(plugin, () -> {
+            if (player.isOnline()) {
+                menu.open(player);
             }
+        }, 3);
+    }
+
+    /**
+     * Points the Inventory a player is viewing at another {@link ninja.amp.ampmenus.menus.ItemMenu}.
+     *
+     * @param player The player.
+     * @param menu   The {@link ninja.amp.ampmenus.menus.ItemMenu} to open.
+     * @return True if the Inventory was reused, else false.
+     */
+    private boolean navigateInPlace(Player player, ItemMenu menu) {
+        MenuSession session = MenuListener.getInstance().getSession(player);
+        if (session == null || session.getMenu() != this || menu.size != size || shared || menu.shared || !isAllowedToClose(player)) {
+            return false;
+        }
+        MenuHolder holder = session.getHolder();
+        InventoryView view = player.getOpenInventory();
+        if (holder.isLoading() || holder.getInventory().getViewers().size() > 1 || view.getTopInventory() != holder.getInventory()) {
+            return false;
+        }
+        String title = menu.getName(player);
+        if (!Objects.equals(title, view.getTitle()) && !setTitle(view, title)) {
+            return false;
+        }
+
+        onInventoryClose(new InventoryCloseEvent(view));
+        holder.setMenu(menu);
+        session.cooldowns.clear();
+        session.visited.add(menu);
+        menu.apply(holder.getInventory(), holder, player);
+        if (menu.isRefreshing()) {
+            MenuTicker.getInstance().start(menu.plugin);
+        }
+        return true;
+    }
+
+    /**
+     * Changes the title of an open InventoryView, on servers that support it.
+     *
+     * @param view  The InventoryView.
+     * @param title The new title.
+     * @return True if the title was changed, else false.
+     */
+    private static boolean setTitle(InventoryView view, String title) {
+        if (viewSetTitle == null) {
+            return false;
+        }
+        try {
+            viewSetTitle.invoke(view, title);
+            return true;
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return false;
+        }
+    }
+
+    private static Method findViewSetTitle() {
+        try {
+            return InventoryView.class.getMethod("setTitle", String.class);
+        } catch (NoSuchMethodException e) {
+            return null;
         }
     }
 
+    /**
+     * Updates the {@link ninja.amp.ampmenus.menus.ItemMenu} for the player of a session, merging all requests made in
+     * the same tick. The first request is rendered right away and any further ones are rendered once on the next tick.
+     * As requests come from clicks, the inventory is always resent to the client.
+     *
+     * @param session The {@link ninja.amp.ampmenus.menus.MenuSession}.
+     */
+    private void requestUpdate(MenuSession session) {
+        if (session.updateScheduled) {
+            session.updatePending = true;
+            return;
+        }
+        update(session.getPlayer(), true);
+        session.updateScheduled = true;
+        Bukkit.getScheduler().runTask(plugin, () -> {
+            session.updateScheduled = false;
+            if (session.updatePending) {
+                session.updatePending = false;
+                if (getHolder(session.getPlayer()) == session.getHolder()) {
+                    update(session.getPlayer(), true);
+                }
+            }
+        });
+    }
+
+    /**
+     * Gets the {@link ninja.amp.ampmenus.menus.ClickLimiter} of the {@link ninja.amp.ampmenus.menus.ItemMenu}.
+     *
+     * @return The {@link ninja.amp.ampmenus.menus.ClickLimiter}, or null if clicks are not limited.
+     */
+    public ClickLimiter getClickLimiter() {
+        return clickLimiter;
+    }
+
+    /**
+     * Sets the {@link ninja.amp.ampmenus.menus.ClickLimiter} of the {@link ninja.amp.ampmenus.menus.ItemMenu}. Each
+     * player viewing the menu is limited separately.
+     *
+     * @param clickLimiter The {@link ninja.amp.ampmenus.menus.ClickLimiter}, or null to stop limiting clicks.
+     */
+    public void setClickLimiter(ClickLimiter clickLimiter) {
+        this.clickLimiter = clickLimiter;
+    }
+
     /**
      * Handles InventoryCloseEvent for the {@link ninja.amp.ampmenus.menus.ItemMenu}. Does nothing by default.
      */
@@ -296,6 +1307,8 @@ public class ItemMenu implements Listener {
         size = null;
         items = null;
         parent = null;
+        sharedHolder = null;
+        MenuStateStore.getInstance().evict(this);
     }
 
     /**
@@ -351,4 +1364,37 @@ public class ItemMenu implements Listener {
 
     }
 
+    /**
+     * The icons of the slots that look the same for every player, rendered once for a batch open.
+     */
+    private class BatchRender {
+
+        private final int[] independent;
+        private final int[] dependent;
+        private final ItemStack[] icons;
+
+        private BatchRender(Player player) {
+            int[] independent = new int[items.length];
+            int[] dependent = new int[items.length];
+            int independentCount = 0;
+            int dependentCount = 0;
+            icons = new ItemStack[items.length];
+            RenderContext context = new RenderContext(ItemMenu.this, player);
+            for (int i = 0; i < items.length; i++) {
+                if (items[i] != null && items[i].isPlayerDependent()) {
+                    dependent[dependentCount++] = i;
+                } else {
+                    independent[independentCount++] = i;
+                    if (items[i] != null) {
+                        context.setSlot(i);
+                        icons[i] = RenderCache.getInstance().getFinalIcon(items[i], player, context);
+                    }
+                }
+            }
+            this.independent = Arrays.copyOf(independent, independentCount);
+            this.dependent = Arrays.copyOf(dependent, dependentCount);
+        }
+
+    }
+
 }
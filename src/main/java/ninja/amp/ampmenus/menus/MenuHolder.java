@@ -18,22 +18,50 @@
  */
 package ninja.amp.ampmenus.menus;
 
+import org.bukkit.Bukkit;
 import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.InventoryHolder;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Allows you to set the {@link ninja.amp.ampmenus.menus.ItemMenu} that created the Inventory as the Inventory's holder.
  */
 public class MenuHolder implements InventoryHolder {
 
-    private final ItemMenu menu;
-    private final Inventory inventory;
+    private ItemMenu menu;
+    private Inventory inventory;
+    private String title;
+    private ItemStack[] snapshot;
+    private CompletableFuture<?> load;
 
+    /**
+     * Creates a {@link ninja.amp.ampmenus.menus.MenuHolder} for an existing Inventory.
+     *
+     * @param menu      The {@link ninja.amp.ampmenus.menus.ItemMenu} holding the Inventory.
+     * @param inventory The Inventory.
+     * @deprecated Use {@link #MenuHolder(ItemMenu, int, String)} so that the holder references the Inventory it holds.
+     */
+    @Deprecated
     public MenuHolder(ItemMenu menu, Inventory inventory) {
         this.menu = menu;
         this.inventory = inventory;
     }
 
+    /**
+     * Creates a {@link ninja.amp.ampmenus.menus.MenuHolder} and the Inventory it holds.
+     *
+     * @param menu  The {@link ninja.amp.ampmenus.menus.ItemMenu} holding the Inventory.
+     * @param size  The amount of slots in the Inventory.
+     * @param title The title of the Inventory.
+     */
+    public MenuHolder(ItemMenu menu, int size, String title) {
+        this.menu = menu;
+        this.title = title;
+        this.inventory = Bukkit.createInventory(this, size, title);
+    }
+
     /**
      * Gets the {@link ninja.amp.ampmenus.menus.ItemMenu} holding the Inventory.
      *
@@ -43,6 +71,64 @@ public class MenuHolder implements InventoryHolder {
         return menu;
     }
 
+    /**
+     * Sets the {@link ninja.amp.ampmenus.menus.ItemMenu} holding the Inventory.
+     *
+     * @param menu The {@link ninja.amp.ampmenus.menus.ItemMenu}.
+     */
+    void setMenu(ItemMenu menu) {
+        this.menu = menu;
+    }
+
+    /**
+     * Gets the title the Inventory was created with.
+     *
+     * @return The title, or null if the Inventory was not created by the holder.
+     */
+    public String getTitle() {
+        return title;
+    }
+
+    /**
+     * Gets the icons last written to the menu's Inventory, used to skip slots whose icon has not changed.
+     *
+     * @param size The amount of slots in the menu.
+     * @return The icons last written, indexed by slot.
+     */
+    ItemStack[] getSnapshot(int size) {
+        if (snapshot == null || snapshot.length != size) {
+            snapshot = new ItemStack[size];
+        }
+        return snapshot;
+    }
+
+    /**
+     * Checks if the menu is still loading its data.
+     *
+     * @return True if the menu is loading, else false.
+     */
+    public boolean isLoading() {
+        return load != null;
+    }
+
+    /**
+     * Cancels the loading of the menu's data, if it is loading.
+     */
+    public void cancelLoad() {
+        if (load != null) {
+            load.cancel(true);
+            load = null;
+        }
+    }
+
+    CompletableFuture<?> getLoad() {
+        return load;
+    }
+
+    void setLoad(CompletableFuture<?> load) {
+        this.load = load;
+    }
+
     @Override
     public Inventory getInventory() {
         return inventory;
@@ -0,0 +1,444 @@
+/*
+ * This file is part of AmpMenus.
+ *
+ * Copyright (c) 2014-2021 <https://github.com/Scarsz/AmpMenus/>
+ *
+ * AmpMenus is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * AmpMenus is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with AmpMenus.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ninja.amp.ampmenus.menus;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Server;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Renders {@link ninja.amp.ampmenus.menus.ItemMenu}s for players before they open them, so that opening the menu only
+ * copies the rendered contents into the Inventory. Only menus with prewarming enabled are rendered, see
+ * {@link ninja.amp.ampmenus.menus.ItemMenu#setPrewarming(boolean)}. When a menu is opened, the targets of its
+ * {@link ninja.amp.ampmenus.items.SubMenuItem}s are prewarmed for the player, and menus can be prewarmed for every
+ * player joining the server. Renders are spread over idle ticks: a tick is idle if it started on schedule, meaning the
+ * server is neither behind nor catching up, and on servers reporting their average tick time, only the time the
+ * ticks leave unused is spent, up to a set amount per tick.
+ *
+ * <p>A prewarmed render is used only if the layout of the menu and its title for the player are unchanged, it is not
+ * older than the maximum age, the menu was not updated for the player since and the player's
+ * {@link ninja.amp.ampmenus.menus.MenuState} for the menu was not written to since. Rendering a menu for a player who
+ * has no state for it does not create any. Prewarming suits menus whose icons change rarely; it is not used for shared
+ * menus, which are already rendered once.</p>
+ */
+public class MenuPrewarmer implements Runnable {
+
+    private static final MenuPrewarmer INSTANCE = new MenuPrewarmer();
+    private static final long NANOS_PER_TICK = 50_000_000L;
+    private static final long TICK_TOLERANCE = TimeUnit.MILLISECONDS.toNanos(2);
+    private static final Method AVERAGE_TICK_TIME = findAverageTickTime();
+
+    private final Set<Request> queue = new LinkedHashSet<>();
+    private final Map<UUID, Map<ItemMenu, Render>> renders = new HashMap<>();
+    private final Map<Plugin, JoinListener> joinListeners = new HashMap<>();
+    private BukkitTask task;
+    private long tickBudget = TimeUnit.MILLISECONDS.toNanos(2);
+    private int maxAge = 100;
+    private int maxQueued = 256;
+    private long lastRun;
+    private Request rendering;
+    private MenuState renderState;
+
+    private MenuPrewarmer() {
+    }
+
+    /**
+     * Gets the {@link ninja.amp.ampmenus.menus.MenuPrewarmer} instance.
+     *
+     * @return The {@link ninja.amp.ampmenus.menus.MenuPrewarmer} instance.
+     */
+    public static MenuPrewarmer getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Gets the time spent prewarming menus each tick.
+     *
+     * @param unit The TimeUnit of the returned time.
+     * @return The time per tick.
+     */
+    public long getTickBudget(TimeUnit unit) {
+        return unit.convert(tickBudget, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Sets the most time spent prewarming menus each tick. Less is spent if the server reports that its ticks leave
+     * less time unused, and nothing is rendered in ticks that are not idle.
+     *
+     * @param tickBudget The time per tick.
+     * @param unit       The TimeUnit of the time.
+     */
+    public void setTickBudget(long tickBudget, TimeUnit unit) {
+        this.tickBudget = unit.toNanos(tickBudget);
+    }
+
+    /**
+     * Gets the time a prewarmed render stays usable.
+     *
+     * @return The maximum age in ticks.
+     */
+    public int getMaxAge() {
+        return maxAge;
+    }
+
+    /**
+     * Sets the time a prewarmed render stays usable.
+     *
+     * @param maxAge The maximum age in ticks.
+     */
+    public void setMaxAge(int maxAge) {
+        this.maxAge = maxAge;
+    }
+
+    /**
+     * Gets the most menus waiting to be rendered at once.
+     *
+     * @return The maximum amount of queued menus.
+     */
+    public int getMaxQueued() {
+        return maxQueued;
+    }
+
+    /**
+     * Sets the most menus waiting to be rendered at once. When the queue is full, the menu queued first is dropped.
+     *
+     * @param maxQueued The maximum amount of queued menus.
+     */
+    public void setMaxQueued(int maxQueued) {
+        this.maxQueued = maxQueued;
+    }
+
+    /**
+     * Queues a menu to be rendered for a player during the next ticks. A menu is queued at most once per player, and
+     * is dropped if it is not rendered within the maximum age. Must be called from the main thread.
+     *
+     * @param player The player.
+     * @param menu   The {@link ninja.amp.ampmenus.menus.ItemMenu}.
+     */
+    public void prewarm(Player player, ItemMenu menu) {
+        if (menu.isShared() || !queue.add(new Request(player, menu, System.nanoTime()))) {
+            return;
+        }
+        Iterator<Request> iterator = queue.iterator();
+        while (queue.size() > maxQueued && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+        if (task == null || task.isCancelled()) {
+            task = Bukkit.getScheduler().runTaskTimer(menu.getPlugin(), this, 1, 1);
+        }
+    }
+
+    /**
+     * Prewarms a menu for every player joining the server, enabling prewarming for the menu.
+     *
+     * @param menu The {@link ninja.amp.ampmenus.menus.ItemMenu}.
+     */
+    public void prewarmOnJoin(ItemMenu menu) {
+        menu.setPrewarming(true);
+        JoinListener listener = joinListeners.get(menu.getPlugin());
+        if (listener == null) {
+            listener = new JoinListener();
+            joinListeners.put(menu.getPlugin(), listener);
+            Bukkit.getPluginManager().registerEvents(listener, menu.getPlugin());
+        }
+        if (!listener.menus.contains(menu)) {
+            listener.menus.add(menu);
+        }
+    }
+
+    /**
+     * Stops prewarming a menu for players joining the server.
+     *
+     * @param menu The {@link ninja.amp.ampmenus.menus.ItemMenu}.
+     */
+    public void removeJoinMenu(ItemMenu menu) {
+        for (JoinListener listener : joinListeners.values()) {
+            listener.menus.remove(menu);
+        }
+    }
+
+    /**
+     * Takes the prewarmed render of a menu for a player if it is still fresh. The render is discarded either way.
+     * Called by {@link ninja.amp.ampmenus.menus.ItemMenu} when the player opens the menu.
+     *
+     * @param player The player.
+     * @param menu   The {@link ninja.amp.ampmenus.menus.ItemMenu}.
+     * @param title  The title of the Inventory the menu is opened in.
+     * @return The icons of every slot, or null if there is no fresh render.
+     */
+    ItemStack[] take(Player player, ItemMenu menu, String title) {
+        Map<ItemMenu, Render> menus = renders.get(player.getUniqueId());
+        Render render = menus != null ? menus.remove(menu) : null;
+        if (menus != null && menus.isEmpty()) {
+            renders.remove(player.getUniqueId());
+        }
+        return render != null && render.isFresh(player, menu) && render.title.equals(title) ? render.icons : null;
+    }
+
+    /**
+     * Checks if a menu has a fresh prewarmed render for a player.
+     *
+     * @param player The player.
+     * @param menu   The {@link ninja.amp.ampmenus.menus.ItemMenu}.
+     * @return True if the render is fresh, else false.
+     */
+    boolean isFresh(Player player, ItemMenu menu) {
+        Map<ItemMenu, Render> menus = renders.get(player.getUniqueId());
+        Render render = menus != null ? menus.get(menu) : null;
+        return render != null && render.isFresh(player, menu);
+    }
+
+    /**
+     * Gets the state used while a menu is rendered for a player by the prewarmer. If the player has no state for the
+     * menu, an empty state that is not stored is used, so that prewarming does not keep state for menus the player
+     * never opens. Called by {@link ninja.amp.ampmenus.menus.ItemMenu#getState(Player)}.
+     *
+     * @param player The player.
+     * @param menu   The {@link ninja.amp.ampmenus.menus.ItemMenu}.
+     * @return The {@link ninja.amp.ampmenus.menus.MenuState}, or null if the menu is not being prewarmed for the player.
+     */
+    MenuState getRenderState(Player player, ItemMenu menu) {
+        Request request = rendering;
+        if (request == null || request.player != player || request.menu != menu || !Bukkit.isPrimaryThread()) {
+            return null;
+        }
+        if (renderState == null) {
+            MenuState state = MenuStateStore.getInstance().peekState(player.getUniqueId(), menu);
+            renderState = state != null ? state : new MenuState();
+        }
+        return renderState;
+    }
+
+    /**
+     * Discards the prewarmed render of a menu for a player.
+     *
+     * @param player The player.
+     * @param menu   The {@link ninja.amp.ampmenus.menus.ItemMenu}.
+     */
+    public void invalidate(Player player, ItemMenu menu) {
+        Map<ItemMenu, Render> menus = renders.get(player.getUniqueId());
+        if (menus != null && menus.remove(menu) != null && menus.isEmpty()) {
+            renders.remove(player.getUniqueId());
+        }
+    }
+
+    /**
+     * Discards the prewarmed renders of a player.
+     *
+     * @param uuid The UUID of the player.
+     */
+    public void invalidate(UUID uuid) {
+        renders.remove(uuid);
+        queue.removeIf(request -> request.player.getUniqueId().equals(uuid));
+    }
+
+    /**
+     * Gets the amount of prewarmed renders kept in memory.
+     *
+     * @return The amount of renders.
+     */
+    public int size() {
+        int size = 0;
+        for (Map<ItemMenu, Render> menus : renders.values()) {
+            size += menus.size();
+        }
+        return size;
+    }
+
+    /**
+     * Discards all prewarmed renders, queued menus and join menus.
+     */
+    public void clear() {
+        renders.clear();
+        queue.clear();
+        joinListeners.values().forEach(HandlerList::unregisterAll);
+        joinListeners.clear();
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+    }
+
+    @Override
+    public void run() {
+        long now = System.nanoTime();
+        long interval = now - lastRun;
+        lastRun = now;
+        long budget = Math.abs(interval - NANOS_PER_TICK) <= TICK_TOLERANCE ? Math.min(tickBudget, getIdleTime()) : 0;
+        long deadline = now + budget;
+        queue.removeIf(request -> !request.isValid(now));
+        while (budget > 0 && !queue.isEmpty() && System.nanoTime() - deadline < 0) {
+            Iterator<Request> iterator = queue.iterator();
+            Request request = iterator.next();
+            iterator.remove();
+            Player player = request.player;
+            ItemMenu menu = request.menu;
+            if (!isFresh(player, menu)) {
+                rendering = request;
+                try {
+                    String title = menu.getName(player);
+                    ItemStack[] icons = menu.render(player);
+                    renders.computeIfAbsent(player.getUniqueId(), uuid -> new IdentityHashMap<>())
+                            .put(menu, new Render(icons, title, menu.getLayoutVersion(), getStateVersion(player, menu), System.nanoTime()));
+                } finally {
+                    rendering = null;
+                    renderState = null;
+                }
+            }
+        }
+
+        if (queue.isEmpty()) {
+            task.cancel();
+            task = null;
+        }
+    }
+
+    /**
+     * Gets the time the ticks of the server leave unused, from the average tick time if the server reports it.
+     *
+     * @return The unused time per tick in nanoseconds, or the time per tick if the server does not report it.
+     */
+    private static long getIdleTime() {
+        if (AVERAGE_TICK_TIME == null) {
+            return NANOS_PER_TICK;
+        }
+        try {
+            double averageTickTime = ((Number) AVERAGE_TICK_TIME.invoke(Bukkit.getServer())).doubleValue();
+            return Math.max(0, NANOS_PER_TICK - (long) (averageTickTime * 1_000_000) - TICK_TOLERANCE);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return NANOS_PER_TICK;
+        }
+    }
+
+    private static Method findAverageTickTime() {
+        try {
+            return Server.class.getMethod("getAverageTickTime");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    private static long getStateVersion(Player player, ItemMenu menu) {
+        MenuState state = MenuStateStore.getInstance().peekState(player.getUniqueId(), menu);
+        return state != null ? state.getVersion() : 0;
+    }
+
+    private class Request {
+
+        private final Player player;
+        private final ItemMenu menu;
+        private final long queuedAt;
+
+        private Request(Player player, ItemMenu menu, long queuedAt) {
+            this.player = player;
+            this.menu = menu;
+            this.queuedAt = queuedAt;
+        }
+
+        /**
+         * Checks if the menu can still be rendered for the player: the player is online, the menu was not destroyed
+         * and the request is not older than the maximum age.
+         *
+         * @param now The current time, from {@link System#nanoTime()}.
+         * @return True if the request is valid, else false.
+         */
+        private boolean isValid(long now) {
+            return player.isOnline() && menu.getPlugin() != null && now - queuedAt < maxAge * NANOS_PER_TICK;
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            if (!(object instanceof Request)) {
+                return false;
+            }
+            Request request = (Request) object;
+            return menu == request.menu && player.getUniqueId().equals(request.player.getUniqueId());
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * player.getUniqueId().hashCode() + System.identityHashCode(menu);
+        }
+
+    }
+
+    private class Render {
+
+        private final ItemStack[] icons;
+        private final String title;
+        private final int layoutVersion;
+        private final long stateVersion;
+        private final long renderedAt;
+
+        private Render(ItemStack[] icons, String title, int layoutVersion, long stateVersion, long renderedAt) {
+            this.icons = icons;
+            this.title = title;
+            this.layoutVersion = layoutVersion;
+            this.stateVersion = stateVersion;
+            this.renderedAt = renderedAt;
+        }
+
+        private boolean isFresh(Player player, ItemMenu menu) {
+            return layoutVersion == menu.getLayoutVersion() && stateVersion == getStateVersion(player, menu)
+                    && System.nanoTime() - renderedAt < maxAge * NANOS_PER_TICK;
+        }
+
+    }
+
+    /**
+     * Prewarms the join menus of a plugin for joining players.
+     */
+    private class JoinListener implements Listener {
+
+        private final List<ItemMenu> menus = new ArrayList<>();
+
+        private JoinListener() {
+        }
+
+        @EventHandler(priority = EventPriority.MONITOR)
+        public void onPlayerJoin(PlayerJoinEvent event) {
+            for (ItemMenu menu : menus) {
+                prewarm(event.getPlayer(), menu);
+            }
+        }
+
+    }
+
+}
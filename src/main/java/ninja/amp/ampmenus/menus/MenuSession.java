@@ -0,0 +1,84 @@
+/*
+ * This file is part of AmpMenus.
+ *
+ * Copyright (c) 2014-2021 <https://github.com/Scarsz/AmpMenus/>
+ *
+ * AmpMenus is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * AmpMenus is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with AmpMenus.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ninja.amp.ampmenus.menus;
+
+import ninja.amp.ampmenus.items.MenuItem;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.Inventory;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A player viewing an {@link ninja.amp.ampmenus.menus.ItemMenu}, from the moment the menu is opened until it is closed.
+ */
+public class MenuSession {
+
+    private final Player player;
+    private final MenuHolder holder;
+    final Map<MenuItem, Long> cooldowns = new IdentityHashMap<>();
+    final Set<ItemMenu> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+    boolean updateScheduled;
+    boolean updatePending;
+
+    public MenuSession(Player player, MenuHolder holder) {
+        this.player = player;
+        this.holder = holder;
+        visited.add(holder.getMenu());
+    }
+
+    /**
+     * Gets the player viewing the menu.
+     *
+     * @return The player.
+     */
+    public Player getPlayer() {
+        return player;
+    }
+
+    /**
+     * Gets the {@link ninja.amp.ampmenus.menus.MenuHolder} of the Inventory the player is viewing.
+     *
+     * @return The {@link ninja.amp.ampmenus.menus.MenuHolder}.
+     */
+    public MenuHolder getHolder() {
+        return holder;
+    }
+
+    /**
+     * Gets the Inventory the player is viewing.
+     *
+     * @return The Inventory.
+     */
+    public Inventory getInventory() {
+        return holder.getInventory();
+    }
+
+    /**
+     * Gets the {@link ninja.amp.ampmenus.menus.ItemMenu} the player is viewing.
+     *
+     * @return The {@link ninja.amp.ampmenus.menus.ItemMenu}.
+     */
+    public ItemMenu getMenu() {
+        return holder.getMenu();
+    }
+
+}
@@ -0,0 +1,176 @@
+/*
+ * This file is part of AmpMenus.
+ *
+ * Copyright (c) 2014-2021 <https://github.com/Scarsz/AmpMenus/>
+ *
+ * AmpMenus is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * AmpMenus is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with AmpMenus.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ninja.amp.ampmenus.menus;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * State kept for a player viewing an {@link ninja.amp.ampmenus.menus.ItemMenu}, such as the page the player is on. The
+ * state is safe to use from any thread and is discarded by the {@link ninja.amp.ampmenus.menus.MenuStateStore} once the
+ * player closes the menu, changes worlds or quits.
+ */
+public class MenuState {
+
+    private final Map<Object, Object> values = new ConcurrentHashMap<>();
+    private final AtomicLong version = new AtomicLong();
+    private volatile long lastAccess = System.nanoTime();
+
+    /**
+     * Gets a number stored in the state.
+     *
+     * @param key The key of the number.
+     * @return The number, or 0 if none is stored.
+     */
+    public long getLong(Object key) {
+        touch();
+        Object value = values.get(key);
+        return value instanceof AtomicLong ? ((AtomicLong) value).get() : 0;
+    }
+
+    /**
+     * Stores a number in the state.
+     *
+     * @param key   The key of the number.
+     * @param value The number.
+     */
+    public void setLong(Object key, long value) {
+        counter(key).set(value);
+        version.incrementAndGet();
+    }
+
+    /**
+     * Adds to a number stored in the state.
+     *
+     * @param key   The key of the number.
+     * @param delta The amount to add.
+     * @return The new number.
+     */
+    public long addLong(Object key, long delta) {
+        long value = counter(key).addAndGet(delta);
+        version.incrementAndGet();
+        return value;
+    }
+
+    /**
+     * Gets a number stored in the state.
+     *
+     * @param key The key of the number.
+     * @return The number, or 0 if none is stored.
+     */
+    public int getInt(Object key) {
+        return (int) getLong(key);
+    }
+
+    /**
+     * Stores a number in the state.
+     *
+     * @param key   The key of the number.
+     * @param value The number.
+     */
+    public void setInt(Object key, int value) {
+        setLong(key, value);
+    }
+
+    /**
+     * Gets a value stored in the state.
+     *
+     * @param key The key of the value.
+     * @param <T> The type of the value.
+     * @return The value, or null if none is stored.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key) {
+        touch();
+        return (T) values.get(key);
+    }
+
+    /**
+     * Gets a value stored in the state, storing a new one if there is none.
+     *
+     * @param key      The key of the value.
+     * @param supplier Creates the value if there is none.
+     * @param <T>      The type of the value.
+     * @return The value.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Supplier<T> supplier) {
+        touch();
+        return (T) values.computeIfAbsent(key, k -> {
+            version.incrementAndGet();
+            return supplier.get();
+        });
+    }
+
+    /**
+     * Stores a value in the state.
+     *
+     * @param key   The key of the value.
+     * @param value The value, or null to remove it.
+     */
+    public void set(Object key, Object value) {
+        touch();
+        if (value == null) {
+            values.remove(key);
+        } else {
+            values.put(key, value);
+        }
+        version.incrementAndGet();
+    }
+
+    /**
+     * Removes a value or number from the state.
+     *
+     * @param key The key of the value.
+     */
+    public void remove(Object key) {
+        values.remove(key);
+        version.incrementAndGet();
+    }
+
+    /**
+     * Gets the time the state was last used.
+     *
+     * @return The time, from {@link System#nanoTime()}.
+     */
+    public long getLastAccess() {
+        return lastAccess;
+    }
+
+    /**
+     * Gets the version of the state, which increases every time a value or number is stored or removed.
+     *
+     * @return The version.
+     */
+    long getVersion() {
+        return version.get();
+    }
+
+    private AtomicLong counter(Object key) {
+        touch();
+        return (AtomicLong) values.computeIfAbsent(key, k -> new AtomicLong());
+    }
+
+    private void touch() {
+        lastAccess = System.nanoTime();
+    }
+
+}
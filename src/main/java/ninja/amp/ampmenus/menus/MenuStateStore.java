@@ -0,0 +1,175 @@
+/*
+ * This file is part of AmpMenus.
+ *
+ * Copyright (c) 2014-2021 <https://github.com/Scarsz/AmpMenus/>
+ *
+ * AmpMenus is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * AmpMenus is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with AmpMenus.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ninja.amp.ampmenus.menus;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Holds the {@link ninja.amp.ampmenus.menus.MenuState} of every player for every {@link ninja.amp.ampmenus.menus.ItemMenu}.
+ * States are evicted when the player closes the menu, changes worlds or quits, and optionally after being unused for
+ * some time, so that long-lived menus do not keep state for every player who ever opened them.
+ */
+public class MenuStateStore {
+
+    private static final MenuStateStore INSTANCE = new MenuStateStore();
+
+    private final Map<UUID, Map<ItemMenu, MenuState>> states = new ConcurrentHashMap<>();
+    private volatile long idleTimeout;
+    private volatile long lastSweep = System.nanoTime();
+
+    private MenuStateStore() {
+    }
+
+    /**
+     * Gets the {@link ninja.amp.ampmenus.menus.MenuStateStore} instance.
+     *
+     * @return The {@link ninja.amp.ampmenus.menus.MenuStateStore} instance.
+     */
+    public static MenuStateStore getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Gets the state of a player for a menu, creating it if needed.
+     *
+     * @param uuid The UUID of the player.
+     * @param menu The {@link ninja.amp.ampmenus.menus.ItemMenu}.
+     * @return The {@link ninja.amp.ampmenus.menus.MenuState}.
+     */
+    public MenuState getState(UUID uuid, ItemMenu menu) {
+        sweep();
+        return states.computeIfAbsent(uuid, id -> new ConcurrentHashMap<>()).computeIfAbsent(menu, m -> new MenuState());
+    }
+
+    /**
+     * Gets the state of a player for a menu without creating it.
+     *
+     * @param uuid The UUID of the player.
+     * @param menu The {@link ninja.amp.ampmenus.menus.ItemMenu}.
+     * @return The {@link ninja.amp.ampmenus.menus.MenuState}, or null if the player has none.
+     */
+    public MenuState peekState(UUID uuid, ItemMenu menu) {
+        Map<ItemMenu, MenuState> menus = states.get(uuid);
+        return menus != null ? menus.get(menu) : null;
+    }
+
+    /**
+     * Discards the state of a player for a menu.
+     *
+     * @param uuid The UUID of the player.
+     * @param menu The {@link ninja.amp.ampmenus.menus.ItemMenu}.
+     */
+    public void evict(UUID uuid, ItemMenu menu) {
+        states.computeIfPresent(uuid, (id, menus) -> {
+            menus.remove(menu);
+            return menus.isEmpty() ? null : menus;
+        });
+    }
+
+    /**
+     * Discards the state of a player for the menus viewed during a session, except the menu the player has open now.
+     *
+     * @param session The ended {@link ninja.amp.ampmenus.menus.MenuSession}.
+     * @param current The current {@link ninja.amp.ampmenus.menus.MenuSession} of the player, or null if none.
+     */
+    public void evict(MenuSession session, MenuSession current) {
+        UUID uuid = session.getPlayer().getUniqueId();
+        for (ItemMenu menu : session.visited) {
+            if (current == null || current.getMenu() != menu) {
+                evict(uuid, menu);
+            }
+        }
+    }
+
+    /**
+     * Discards the state of a player for all menus.
+     *
+     * @param uuid The UUID of the player.
+     */
+    public void evict(UUID uuid) {
+        states.remove(uuid);
+    }
+
+    /**
+     * Discards the state of all players for a menu.
+     *
+     * @param menu The {@link ninja.amp.ampmenus.menus.ItemMenu}.
+     */
+    public void evict(ItemMenu menu) {
+        for (UUID uuid : states.keySet()) {
+            evict(uuid, menu);
+        }
+    }
+
+    /**
+     * Gets the time after which an unused state is discarded.
+     *
+     * @param unit The unit of the returned time.
+     * @return The idle timeout, or 0 if states are only discarded on close, world change and quit.
+     */
+    public long getIdleTimeout(TimeUnit unit) {
+        return unit.convert(idleTimeout, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Sets the time after which an unused state is discarded. A state is used whenever one of its values is read or
+     * written, which happens every time the menu is rendered for the player.
+     *
+     * @param timeout The idle timeout, or 0 to only discard states on close, world change and quit.
+     * @param unit    The unit of the timeout.
+     */
+    public void setIdleTimeout(long timeout, TimeUnit unit) {
+        this.idleTimeout = unit.toNanos(timeout);
+    }
+
+    /**
+     * Gets the amount of players with state stored.
+     *
+     * @return The amount of players.
+     */
+    public int size() {
+        return states.size();
+    }
+
+    /**
+     * Discards all states.
+     */
+    public void clear() {
+        states.clear();
+    }
+
+    private void sweep() {
+        long timeout = idleTimeout;
+        long now = System.nanoTime();
+        if (timeout <= 0 || now - lastSweep < timeout / 2) {
+            return;
+        }
+        lastSweep = now;
+        for (UUID uuid : states.keySet()) {
+            states.computeIfPresent(uuid, (id, menus) -> {
+                menus.values().removeIf(state -> now - state.getLastAccess() > timeout);
+                return menus.isEmpty() ? null : menus;
+            });
+        }
+    }
+
+}
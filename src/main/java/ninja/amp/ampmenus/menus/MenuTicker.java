@@ -0,0 +1,96 @@
+/*
+ * This file is part of AmpMenus.
+ *
+ * Copyright (c) 2014-2021 <https://github.com/Scarsz/AmpMenus/>
+ *
+ * AmpMenus is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * AmpMenus is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with AmpMenus.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ninja.amp.ampmenus.menus;
+
+import ninja.amp.ampmenus.MenuListener;
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Refreshes every open {@link ninja.amp.ampmenus.menus.ItemMenu} that has a refresh interval, or holds items that
+ * have one. A single task runs once per tick while such menus are open, grouping the viewers of each menu so that all
+ * due refreshes are handled in one pass.
+ */
+public class MenuTicker implements Runnable {
+
+    private static final MenuTicker INSTANCE = new MenuTicker();
+
+    private BukkitTask task;
+    private long tick;
+
+    private MenuTicker() {
+    }
+
+    /**
+     * Gets the {@link ninja.amp.ampmenus.menus.MenuTicker} instance.
+     *
+     * @return The {@link ninja.amp.ampmenus.menus.MenuTicker} instance.
+     */
+    public static MenuTicker getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Gets the amount of ticks the {@link ninja.amp.ampmenus.menus.MenuTicker} has run for.
+     *
+     * @return The current tick.
+     */
+    public long getTick() {
+        return tick;
+    }
+
+    /**
+     * Starts the {@link ninja.amp.ampmenus.menus.MenuTicker} if it is not running.
+     *
+     * @param plugin The plugin used to schedule the task.
+     */
+    void start(Plugin plugin) {
+        if (task == null || task.isCancelled()) {
+            task = Bukkit.getScheduler().runTaskTimer(plugin, this, 1, 1);
+        }
+    }
+
+    @Override
+    public void run() {
+        tick++;
+        Map<ItemMenu, List<MenuSession>> menus = new IdentityHashMap<>();
+        for (MenuSession session : MenuListener.getInstance().getSessions()) {
+            menus.computeIfAbsent(session.getMenu(), menu -> new ArrayList<>()).add(session);
+        }
+
+        boolean refreshing = false;
+        for (Map.Entry<ItemMenu, List<MenuSession>> entry : menus.entrySet()) {
+            if (entry.getKey().isRefreshing()) {
+                entry.getKey().refresh(tick, entry.getValue());
+                refreshing = true;
+            }
+        }
+        if (!refreshing) {
+            task.cancel();
+            task = null;
+        }
+    }
+
+}
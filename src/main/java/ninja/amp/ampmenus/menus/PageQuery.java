@@ -0,0 +1,165 @@
+/*
+ * This file is part of AmpMenus.
+ *
+ * Copyright (c) 2014-2021 <https://github.com/Scarsz/AmpMenus/>
+ *
+ * AmpMenus is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * AmpMenus is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with AmpMenus.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ninja.amp.ampmenus.menus;
+
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.function.Predicate;
+
+/**
+ * A search over the entries of an {@link ninja.amp.ampmenus.menus.IndexedPageSource}, made of a text filter, a
+ * predicate filter and a sort order. Queries are immutable; each method returns a new query, so a query can be compared
+ * with the one a cached result was computed for.
+ *
+ * @param <T> The type of the entries.
+ */
+public final class PageQuery<T> {
+
+    private static final PageQuery<?> ALL = new PageQuery<>(null, null, null);
+
+    private final String text;
+    private final String[] words;
+    private final Predicate<? super T> filter;
+    private final Comparator<? super T> sort;
+
+    private PageQuery(String text, Predicate<? super T> filter, Comparator<? super T> sort) {
+        this.text = text;
+        this.words = text == null ? new String[0] : IndexedPageSource.tokenize(text);
+        this.filter = filter;
+        this.sort = sort;
+    }
+
+    /**
+     * Gets a query matching every entry in the order of the source.
+     *
+     * @param <T> The type of the entries.
+     * @return The {@link ninja.amp.ampmenus.menus.PageQuery}.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> PageQuery<T> all() {
+        return (PageQuery<T>) ALL;
+    }
+
+    /**
+     * Creates a copy of this query that only matches entries whose key has, for every word of a text, a word starting
+     * with it, ignoring case. Words are separated by any character that is not a letter or a digit, so "dia sw"
+     * matches "Diamond Sword".
+     *
+     * @param text The text, or null or empty to match any key.
+     * @return The {@link ninja.amp.ampmenus.menus.PageQuery}.
+     */
+    public PageQuery<T> text(String text) {
+        String normalized = text == null || text.isEmpty() ? null : text.toLowerCase(Locale.ROOT);
+        return new PageQuery<>(normalized, filter, sort);
+    }
+
+    /**
+     * Creates a copy of this query that only matches entries accepted by a predicate.
+     *
+     * @param filter The predicate, or null to match any entry.
+     * @return The {@link ninja.amp.ampmenus.menus.PageQuery}.
+     */
+    public PageQuery<T> filter(Predicate<? super T> filter) {
+        return new PageQuery<>(text, filter, sort);
+    }
+
+    /**
+     * Creates a copy of this query that sorts the matching entries.
+     *
+     * @param sort The Comparator, or null to keep the order of the source.
+     * @return The {@link ninja.amp.ampmenus.menus.PageQuery}.
+     */
+    public PageQuery<T> sort(Comparator<? super T> sort) {
+        return new PageQuery<>(text, filter, sort);
+    }
+
+    /**
+     * Gets the text the keys of matching entries are searched by.
+     *
+     * @return The text in lower case, or null if any key matches.
+     */
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * Gets the words of the text, each of which must start a word of the key of a matching entry.
+     *
+     * @return The words in lower case, empty if any key matches.
+     */
+    String[] getWords() {
+        return words;
+    }
+
+    /**
+     * Gets the predicate matching entries are accepted by.
+     *
+     * @return The predicate, or null if any entry matches.
+     */
+    public Predicate<? super T> getFilter() {
+        return filter;
+    }
+
+    /**
+     * Gets the Comparator the matching entries are sorted with.
+     *
+     * @return The Comparator, or null if the order of the source is kept.
+     */
+    public Comparator<? super T> getSort() {
+        return sort;
+    }
+
+    /**
+     * Checks if the query matches every entry in the order of the source.
+     *
+     * @return True if the query neither filters nor sorts, else false.
+     */
+    public boolean isAll() {
+        return text == null && filter == null && sort == null;
+    }
+
+    /**
+     * Checks if an entry is accepted by the predicate of the query. The text is matched by the index of the source.
+     *
+     * @param entry The entry.
+     * @return True if the entry is accepted, else false.
+     */
+    boolean accepts(T entry) {
+        return filter == null || filter.test(entry);
+    }
+
+    @Override
+    public boolean equals(Object object) {
+        if (this == object) {
+            return true;
+        }
+        if (!(object instanceof PageQuery)) {
+            return false;
+        }
+        PageQuery<?> query = (PageQuery<?>) object;
+        return Objects.equals(text, query.text) && Objects.equals(filter, query.filter) && Objects.equals(sort, query.sort);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(text, filter, sort);
+    }
+
+}
@@ -0,0 +1,101 @@
+/*
+ * This file is part of AmpMenus.
+ *
+ * Copyright (c) 2014-2021 <https://github.com/Scarsz/AmpMenus/>
+ *
+ * AmpMenus is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * AmpMenus is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with AmpMenus.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ninja.amp.ampmenus.menus;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * A source of the entries shown by a {@link ninja.amp.ampmenus.menus.PaginatedItemMenu}. Only the entries of the
+ * visible page are requested from the source, so it does not need to hold every entry in memory.
+ *
+ * @param <T> The type of the entries.
+ */
+public interface PageSource<T> {
+
+    /**
+     * Gets the total amount of entries in the source.
+     *
+     * @return The amount of entries.
+     */
+    int count();
+
+    /**
+     * Gets a window of the entries in the source.
+     *
+     * @param offset The index of the first entry.
+     * @param limit  The maximum amount of entries.
+     * @return The entries, possibly fewer than the limit if the end of the source is reached.
+     */
+    List<T> slice(int offset, int limit);
+
+    /**
+     * Creates a {@link ninja.amp.ampmenus.menus.PageSource} that converts the entries of this source, converting only
+     * the entries of each requested window.
+     *
+     * @param mapper Converts an entry of this source.
+     * @param <R>    The type of the converted entries.
+     * @return The converted {@link ninja.amp.ampmenus.menus.PageSource}.
+     */
+    default <R> PageSource<R> map(Function<? super T, ? extends R> mapper) {
+        PageSource<T> source = this;
+        return new PageSource<R>() {
+            @Override
+            public int count() {
+                return source.count();
+            }
+
+            @Override
+            public List<R> slice(int offset, int limit) {
+                List<T> entries = source.slice(offset, limit);
+                List<R> mapped = new ArrayList<>(entries.size());
+                for (T entry : entries) {
+                    mapped.add(mapper.apply(entry));
+                }
+                return mapped;
+            }
+        };
+    }
+
+    /**
+     * Creates a {@link ninja.amp.ampmenus.menus.PageSource} backed by a list.
+     *
+     * @param list The list.
+     * @param <T>  The type of the entries.
+     * @return The {@link ninja.amp.ampmenus.menus.PageSource}.
+     */
+    static <T> PageSource<T> of(List<T> list) {
+        return new PageSource<T>() {
+            @Override
+            public int count() {
+                return list.size();
+            }
+
+            @Override
+            public List<T> slice(int offset, int limit) {
+                int from = Math.max(0, Math.min(offset, list.size()));
+                int to = Math.max(from, Math.min(offset + limit, list.size()));
+                return from == to ? Collections.emptyList() : list.subList(from, to);
+            }
+        };
+    }
+
+}
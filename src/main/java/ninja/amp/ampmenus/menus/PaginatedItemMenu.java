@@ -22,14 +22,13 @@ import ninja.amp.ampmenus.items.BackMenuItem;
 import ninja.amp.ampmenus.items.MenuItem;
 import ninja.amp.ampmenus.items.pagination.PaginationMenuItem;
 import ninja.amp.ampmenus.items.pagination.PaginationPageItem;
+import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 import org.bukkit.plugin.java.JavaPlugin;
 
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
-import java.util.UUID;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * <p>This is an extension of {@link ItemMenu}. This menu will collect a list of {@link MenuItem}s to display to the
@@ -44,7 +43,20 @@ import java.util.concurrent.atomic.AtomicInteger;
  */
 public abstract class PaginatedItemMenu extends ItemMenu {
 
-    private final Map<UUID, AtomicInteger> pages = new HashMap<>();
+    /**
+     * The amount of items shown on each page.
+     */
+    public static final int ITEMS_PER_PAGE = Size.FIVE_LINE.getSize();
+
+    private static final String PAGE_STATE_KEY = "page";
+    private static final String QUERY_STATE_KEY = "query";
+    private static final String VIEW_STATE_KEY = "queryView";
+
+    private final Object sourceKey = new Object();
+    private final Object countKey = new Object();
+    private final Object pageKey = new Object();
+    private final Object pageItemsKey = new Object();
+    private volatile boolean pageRefreshing;
 
     /**
      * Creates a {@link PaginatedItemMenu}.
@@ -66,7 +78,7 @@ public abstract class PaginatedItemMenu extends ItemMenu {
     public PaginatedItemMenu(String name, JavaPlugin plugin, ItemMenu parent) {
         super(name, Size.SIX_LINE, plugin, parent);
 
-        for (int i = 0; i < Size.FIVE_LINE.getSize(); i++) {
+        for (int i = 0; i < ITEMS_PER_PAGE; i++) {
             setItem(i, new PaginationMenuItem(this, i));
         }
 
@@ -77,16 +89,146 @@ public abstract class PaginatedItemMenu extends ItemMenu {
     }
 
     /**
-     * This method should return items that should be visible in this menu. For instance,
+     * This method should return items that should be visible in this menu. Menus overriding
+     * {@link #getSource(Player)} are only asked for their items by the default source.
      * @param player the player that items should be returned for
      * @return the complete list of {@link MenuItem}s to be shown in this menu, across all pages.
      */
     public abstract List<MenuItem> getItems(Player player);
 
+    /**
+     * This method should return the source of the items that should be visible in this menu. Only the items of the
+     * page being shown are requested from the source, so override this instead of {@link #getItems(Player)} when there
+     * are many items. Use {@link PageSource#map(java.util.function.Function)} to create {@link MenuItem}s from other
+     * entries only when they are shown. By default, this returns a source backed by {@link #getItems(Player)}.
+     * <p>
+     * An {@link IndexedPageSource} builds its index when it is created, so keep one and call
+     * {@link IndexedPageSource#setEntries(List)} when the entries change rather than creating it on every call. Query
+     * results are reused as long as the source holds the same entries, so a new source does not restart the query.</p>
+     * @param player the player that items should be returned for
+     * @return the source of the {@link MenuItem}s to be shown in this menu, across all pages.
+     */
+    public PageSource<MenuItem> getSource(Player player) {
+        return PageSource.of(getItems(player));
+    }
+
+    /**
+     * Gets the source of the items visible in this menu, creating it only once per render. If the source is an
+     * {@link IndexedPageSource} and the player has a query set, only the items matching the query are returned.
+     * @param player the player that items should be returned for
+     * @param context the {@link RenderContext} of the current render, or null outside of a render
+     * @return the source of the {@link MenuItem}s to be shown in this menu.
+     */
+    public PageSource<MenuItem> getSource(Player player, RenderContext context) {
+        return context != null ? context.get(sourceKey, () -> getQuerySource(player)) : getQuerySource(player);
+    }
+
+    /**
+     * Gets the items of the source matching the player's query. The query runs on the loader executor the first time
+     * its result is needed, or on the next tick if the loader queue is full, and the result is kept in the player's
+     * {@link MenuState} until the query or the entries of the source change, even if a new source holding the same
+     * entries is returned. Until it is ready, the previous result is shown, or every item if there is none.
+     * @param player the player that items should be returned for
+     * @return the source of the {@link MenuItem}s to be shown in this menu.
+     */
+    @SuppressWarnings("unchecked")
+    private PageSource<MenuItem> getQuerySource(Player player) {
+        PageSource<MenuItem> source = getSource(player);
+        MenuState state = getState(player);
+        PageQuery<MenuItem> query = state.get(QUERY_STATE_KEY);
+        if (query == null || query.isAll() || !(source instanceof IndexedPageSource)) {
+            return source;
+        }
+
+        IndexedPageSource<MenuItem> indexed = (IndexedPageSource<MenuItem>) source;
+        QueryView view = state.get(VIEW_STATE_KEY);
+        if (view != null && view.isFor(indexed, query)) {
+            return view.result != null ? view.result : source;
+        }
+
+        QueryView pending = new QueryView(indexed, query, indexed.getVersion(), view != null ? view.result : null);
+        state.set(VIEW_STATE_KEY, pending);
+        supplyAsync(() -> indexed.query(query)).whenComplete((result, throwable) -> Bukkit.getScheduler().runTask(getPlugin(), () -> {
+            if (state.get(VIEW_STATE_KEY) == pending) {
+                if (throwable instanceof RejectedExecutionException) {
+                    state.set(VIEW_STATE_KEY, new QueryView(indexed, query, pending.version, PageSource.of(indexed.query(query))));
+                } else {
+                    state.set(VIEW_STATE_KEY, new QueryView(indexed, query, pending.version, throwable != null ? indexed : PageSource.of(result)));
+                }
+                if (throwable != null && !(throwable instanceof RejectedExecutionException)) {
+                    getPlugin().getLogger().warning("Failed to run the query of " + player.getName() + " in " + getName() + ": " + throwable);
+                }
+                if (player.isOnline()) {
+                    update(player);
+                }
+            }
+        }));
+        return pending.result != null ? pending.result : source;
+    }
+
+    /**
+     * Gets the query the player's items are filtered and sorted with.
+     * @param player the player who's query will be returned
+     * @return the {@link PageQuery}, or null if the player has none.
+     */
+    public PageQuery<MenuItem> getQuery(Player player) {
+        return getState(player).get(QUERY_STATE_KEY);
+    }
+
+    /**
+     * Sets the query the player's items are filtered and sorted with, moves the player to the first page and updates
+     * the GUI. The query is only applied if {@link #getSource(Player)} returns an {@link IndexedPageSource}. This
+     * method may be called from any thread; the GUI is then updated on the next tick.
+     * @param player the player who's query will be set
+     * @param query the {@link PageQuery}, or null to show every item.
+     */
+    public void setQuery(Player player, PageQuery<MenuItem> query) {
+        MenuState state = getState(player);
+        if (query != null) {
+            state.set(QUERY_STATE_KEY, query);
+        } else {
+            state.remove(QUERY_STATE_KEY);
+        }
+        setPage(player, 0);
+    }
+
+    /**
+     * Gets the items on the player's current page, requesting them from the source only once per render.
+     * @param player the player that items should be returned for
+     * @param context the {@link RenderContext} of the current render, or null outside of a render
+     * @return the {@link MenuItem}s on the player's current page.
+     */
+    public List<MenuItem> getPageItems(Player player, RenderContext context) {
+        if (context != null) {
+            return context.get(pageItemsKey, () -> watchRefresh(getSource(player, context).slice(getPage(player, context) * ITEMS_PER_PAGE, ITEMS_PER_PAGE)));
+        }
+        return watchRefresh(getSource(player, null).slice(getPage(player) * ITEMS_PER_PAGE, ITEMS_PER_PAGE));
+    }
+
+    /**
+     * Notes if any item of a page has a refresh interval, so that the {@link MenuTicker} keeps refreshing the menu.
+     * @param pageItems the items of a page
+     * @return the items of the page.
+     */
+    private List<MenuItem> watchRefresh(List<MenuItem> pageItems) {
+        if (!pageRefreshing) {
+            for (MenuItem item : pageItems) {
+                if (item.getRefreshInterval() > 0) {
+                    pageRefreshing = true;
+                    break;
+                }
+            }
+        }
+        return pageItems;
+    }
+
+    /**
+     * Checks if the menu, its own items or any paged item shown so far are refreshed on an interval.
+     * @return True if the menu is refreshed, else false.
+     */
     @Override
-    public void open(Player player) {
-        ensurePageDataAvailable(player);
-        super.open(player);
+    public boolean isRefreshing() {
+        return pageRefreshing || super.isRefreshing();
     }
 
     /**
@@ -95,26 +237,85 @@ public abstract class PaginatedItemMenu extends ItemMenu {
      * @return the page the player is on, 0-indexed.
      */
     public int getPage(Player player) {
-        ensurePageDataAvailable(player);
-        return pages.get(player.getUniqueId()).get();
+        return getState(player).getInt(PAGE_STATE_KEY);
     }
 
     /**
-     * Sets the page number that the player is on. This method will not update the GUI; you should probably call
-     * {@link #update(Player)} after this method.
+     * Gets the current page number that the player is on, looking it up only once per render.
+     * @param player the player who's page will be returned
+     * @param context the {@link RenderContext} of the current render, or null outside of a render
+     * @return the page the player is on, 0-indexed.
+     */
+    public int getPage(Player player, RenderContext context) {
+        return context != null ? context.get(pageKey, () -> getPage(player)) : getPage(player);
+    }
+
+    /**
+     * Gets the amount of pages needed to show the player's items, computing it only once per render.
+     * @param player the player who's page count will be returned
+     * @param context the {@link RenderContext} of the current render, or null outside of a render
+     * @return the amount of pages.
+     */
+    public int getPageCount(Player player, RenderContext context) {
+        int count = context != null ? context.get(countKey, () -> getSource(player, context).count()) : getSource(player, null).count();
+        return count / ITEMS_PER_PAGE + 1;
+    }
+
+    @Override
+    protected MenuItem getEffectiveItem(Player player, int slot, RenderContext context) {
+        MenuItem item = super.getEffectiveItem(player, slot, context);
+        return item instanceof PaginationMenuItem ? ((PaginationMenuItem) item).getEffectiveItem(player, context) : item;
+    }
+
+    @Override
+    protected int[] getSlots(Player player, MenuItem item) {
+        int[] slots = super.getSlots(player, item);
+        List<MenuItem> pageItems = getPageItems(player, null);
+        for (int i = 0; i < pageItems.size(); i++) {
+            if (pageItems.get(i) == item) {
+                slots = Arrays.copyOf(slots, slots.length + 1);
+                slots[slots.length - 1] = i;
+            }
+        }
+        return slots;
+    }
+
+    /**
+     * Sets the page number that the player is on and updates the GUI. This method may be called from any thread; the
+     * GUI is then updated on the next tick.
      * @param player the player who's page will be set
      * @param page the page the player should be set to, 0-indexed.
      */
     public void setPage(Player player, int page) {
-        ensurePageDataAvailable(player);
-        pages.get(player.getUniqueId()).set(page);
-        update(player);
+        getState(player).setInt(PAGE_STATE_KEY, page);
+        if (Bukkit.isPrimaryThread()) {
+            update(player);
+        } else {
+            Bukkit.getScheduler().runTask(getPlugin(), () -> update(player));
+        }
     }
 
-    private void ensurePageDataAvailable(Player player) {
-        if (!pages.containsKey(player.getUniqueId())) {
-            pages.put(player.getUniqueId(), new AtomicInteger());
+    /**
+     * The result of a player's query, or a query still running if the result is not ready.
+     */
+    private static class QueryView {
+
+        private final IndexedPageSource<MenuItem> source;
+        private final PageQuery<MenuItem> query;
+        private final long version;
+        private final PageSource<MenuItem> result;
+
+        private QueryView(IndexedPageSource<MenuItem> source, PageQuery<MenuItem> query, long version, PageSource<MenuItem> result) {
+            this.source = source;
+            this.query = query;
+            this.version = version;
+            this.result = result;
+        }
+
+        private boolean isFor(IndexedPageSource<MenuItem> source, PageQuery<MenuItem> query) {
+            return this.query.equals(query) && version == this.source.getVersion() && this.source.hasSameEntries(source);
         }
+
     }
 
 }
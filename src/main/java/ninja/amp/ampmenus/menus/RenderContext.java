@@ -0,0 +1,119 @@
+/*
+ * This file is part of AmpMenus.
+ *
+ * Copyright (c) 2014-2021 <https://github.com/Scarsz/AmpMenus/>
+ *
+ * AmpMenus is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * AmpMenus is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with AmpMenus.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ninja.amp.ampmenus.menus;
+
+import org.bukkit.entity.Player;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Holds values computed during a single render of an {@link ninja.amp.ampmenus.menus.ItemMenu} for a player, so that
+ * every slot of the render can share them instead of computing them again.
+ */
+public class RenderContext {
+
+    private final ItemMenu menu;
+    private final Player player;
+    private final Map<Object, Object> values = new HashMap<>();
+    private int slot = -1;
+
+    public RenderContext(ItemMenu menu, Player player) {
+        this.menu = menu;
+        this.player = player;
+    }
+
+    /**
+     * Gets the {@link ninja.amp.ampmenus.menus.ItemMenu} being rendered.
+     *
+     * @return The {@link ninja.amp.ampmenus.menus.ItemMenu}.
+     */
+    public ItemMenu getMenu() {
+        return menu;
+    }
+
+    /**
+     * Gets the player the {@link ninja.amp.ampmenus.menus.ItemMenu} is being rendered for.
+     *
+     * @return The player.
+     */
+    public Player getPlayer() {
+        return player;
+    }
+
+    /**
+     * Gets the slot currently being rendered.
+     *
+     * @return The slot position, or -1 if no slot is being rendered.
+     */
+    public int getSlot() {
+        return slot;
+    }
+
+    /**
+     * Sets the slot currently being rendered.
+     *
+     * @param slot The slot position.
+     */
+    void setSlot(int slot) {
+        this.slot = slot;
+    }
+
+    /**
+     * Gets a value of the render, computing it if it is not present yet.
+     *
+     * @param key      The key of the value.
+     * @param supplier Computes the value if it is not present.
+     * @param <T>      The type of the value.
+     * @return The value.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Supplier<T> supplier) {
+        if (values.containsKey(key)) {
+            return (T) values.get(key);
+        }
+        T value = supplier.get();
+        values.put(key, value);
+        return value;
+    }
+
+    /**
+     * Gets a value of the render.
+     *
+     * @param key The key of the value.
+     * @param <T> The type of the value.
+     * @return The value, or null if it is not present.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key) {
+        return (T) values.get(key);
+    }
+
+    /**
+     * Sets a value of the render.
+     *
+     * @param key   The key of the value.
+     * @param value The value.
+     */
+    public void put(Object key, Object value) {
+        values.put(key, value);
+    }
+
+}